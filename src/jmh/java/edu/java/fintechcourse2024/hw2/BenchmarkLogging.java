@@ -0,0 +1,17 @@
+package edu.java.fintechcourse2024.hw2;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+final class BenchmarkLogging {
+
+    private BenchmarkLogging() {
+    }
+
+    // INFO-сообщение на каждый файл или город на измеряемом пути искажает результат;
+    // ошибки разбора некорректного входа по-прежнему логируются
+    static void warnOnly() {
+        ((Logger) LoggerFactory.getLogger("edu.java.fintechcourse2024")).setLevel(Level.WARN);
+    }
+}
@@ -0,0 +1,101 @@
+package edu.java.fintechcourse2024.hw2;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CityArrayBenchmark {
+
+    // Столько разных городов сериализуется по кругу: заранее построить все 10 млн не позволяет память
+    private static final int CITY_POOL_SIZE = 1 << 16;
+
+    @Param({"1", "10000", "10000000"})
+    public long records;
+
+    private City[] cities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.warnOnly();
+        cities = new City[(int) Math.min(records, CITY_POOL_SIZE)];
+        for (int i = 0; i < cities.length; i++) {
+            cities[i] = CityDataGenerator.city(i);
+        }
+    }
+
+    // Файлы нужны только чтению и конвертации: toXML не размножается по значениям input
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        @Param({"valid", "malformed"})
+        public String input;
+
+        private Path dir;
+        private File jsonFile;
+        private File xmlFile;
+
+        @Setup(Level.Trial)
+        public void setUp(CityArrayBenchmark benchmark) throws IOException {
+            dir = Files.createTempDirectory("city-bench");
+            jsonFile = CityDataGenerator.writeArray(dir.resolve("cities.json"), benchmark.records,
+                    "malformed".equals(input)).toFile();
+            xmlFile = dir.resolve("cities.xml").toFile();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(jsonFile.toPath());
+            Files.deleteIfExists(xmlFile.toPath());
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Benchmark
+    public long readJsonArray(Input input, Blackhole blackhole) throws IOException {
+        try {
+            return CityParser.readJsonArray(input.jsonFile, blackhole::consume);
+        } catch (IOException e) {
+            if ("valid".equals(input.input)) {
+                throw e;
+            }
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public void toXML(Blackhole blackhole) {
+        int pool = cities.length;
+        for (long i = 0; i < records; i++) {
+            blackhole.consume(CityParser.toXML(cities[(int) (i % pool)]));
+        }
+    }
+
+    @Benchmark
+    public long convertJsonArrayToXML(Input input) {
+        return CityParser.convertJsonArrayToXML(input.jsonFile, input.xmlFile);
+    }
+}
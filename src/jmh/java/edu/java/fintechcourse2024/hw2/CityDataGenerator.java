@@ -0,0 +1,57 @@
+package edu.java.fintechcourse2024.hw2;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+final class CityDataGenerator {
+
+    private static final String[] SLUGS = {"spb", "msk", "ekb", "nsk", "kzn", "nnv", "smr", "krd", "ufa", "vlg"};
+
+    private CityDataGenerator() {
+    }
+
+    static City city(long index) {
+        SplittableRandom random = new SplittableRandom(index);
+        String slug = SLUGS[(int) (index % SLUGS.length)] + (index / SLUGS.length);
+        return new City(slug, new Coordinates(random.nextDouble(-90, 90), random.nextDouble(-180, 180)));
+    }
+
+    static Path writeObject(Path file, boolean malformed) throws IOException {
+        StringBuilder json = new StringBuilder();
+        appendJson(city(0), malformed, json);
+        return Files.writeString(file, json);
+    }
+
+    static Path writeArray(Path file, long records, boolean malformed) throws IOException {
+        long brokenIndex = malformed ? records / 2 : -1;
+        StringBuilder json = new StringBuilder(128);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write('[');
+            for (long i = 0; i < records; i++) {
+                json.setLength(0);
+                if (i > 0) {
+                    json.append(",\n");
+                }
+                appendJson(city(i), i == brokenIndex, json);
+                out.append(json);
+            }
+            out.write(']');
+        }
+        return file;
+    }
+
+    private static void appendJson(City city, boolean malformed, StringBuilder json) {
+        json.append("{\n  \"slug\": \"").append(city.slug())
+                .append(malformed ? "\",\n  \"coo: {\n" : "\",\n  \"coords\": {\n")
+                .append("    \"lat\": ").append(city.coords().lat())
+                .append(",\n    \"lon\": ").append(city.coords().lon())
+                .append("\n  }\n}");
+    }
+}
@@ -0,0 +1,88 @@
+package edu.java.fintechcourse2024.hw2;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CityParserBenchmark {
+
+    private Path dir;
+    private File xmlFile;
+    private City city;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkLogging.warnOnly();
+        dir = Files.createTempDirectory("city-bench");
+        xmlFile = dir.resolve("city.xml").toFile();
+        city = CityDataGenerator.city(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(xmlFile.toPath());
+        Files.deleteIfExists(dir);
+    }
+
+    // Вход нужен только парсингу: toXML и saveAsXML не размножаются по значениям input
+    @State(Scope.Benchmark)
+    public static class Input {
+
+        @Param({"valid", "malformed"})
+        public String input;
+
+        private Path dir;
+        private File jsonFile;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            BenchmarkLogging.warnOnly();
+            dir = Files.createTempDirectory("city-bench-input");
+            jsonFile = CityDataGenerator.writeObject(dir.resolve("city.json"), "malformed".equals(input)).toFile();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(jsonFile.toPath());
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Benchmark
+    public City fromJson(Input input) {
+        return CityParser.fromJson(input.jsonFile);
+    }
+
+    @Benchmark
+    public String toXML() {
+        return CityParser.toXML(city);
+    }
+
+    @Benchmark
+    public void saveAsXML() {
+        CityParser.saveAsXML(city, xmlFile);
+    }
+}
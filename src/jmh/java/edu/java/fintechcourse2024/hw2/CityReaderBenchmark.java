@@ -0,0 +1,70 @@
+package edu.java.fintechcourse2024.hw2;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Fork(1)
+public class CityReaderBenchmark {
+
+    private static final byte[] JSON = """
+            {
+              "slug": "spb",
+              "coords": {
+                "lat": 59.939095,
+                "lon": 30.315868
+              }
+            }
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(10)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public City coldPerCallMapper() throws IOException {
+        return new ObjectMapper().readValue(JSON, City.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(10)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public City coldSharedReader() throws IOException {
+        return CityReader.shared().read(JSON);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public City warmPerCallMapper() throws IOException {
+        return new ObjectMapper().readValue(JSON, City.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public City warmSharedReader() throws IOException {
+        return CityReader.shared().read(JSON);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.java.fintechcourse2024.hw2;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость логирования успешной операции на горячем пути: синхронный FileAppender против
+// AsyncAppender с ограниченной очередью, в каждом из режимов ConversionLog.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConversionLogBenchmark {
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    @Param({"PER_FILE", "AGGREGATED"})
+    public LogMode mode;
+
+    private Path logFile;
+    private Logger logger;
+    private File jsonFile;
+    private File xmlFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("conversion-log", ".log");
+        jsonFile = new File("city-0000001.json");
+        xmlFile = new File("city-0000001.xml");
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> target = file;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            // Без отбрасывания: иначе асинхронный вариант выигрывал бы за счёт потерянных сообщений
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(false);
+            async.addAppender(file);
+            async.start();
+            target = async;
+        }
+
+        logger = context.getLogger("benchmark.conversion");
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(target);
+
+        ConversionLog.configure(mode, 1000, Duration.ofSeconds(1));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        logger.detachAndStopAllAppenders();
+        ConversionLog.configure(LogMode.PER_FILE, 1000);
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void parsedAndSaved() {
+        ConversionLog.parsed(logger, jsonFile, 512);
+        ConversionLog.saved(logger, xmlFile, 640);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.java.fintechcourse2024.hw2.web;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CityLoadTest {
+
+    private static final int DEFAULT_REQUESTS = 2000;
+    private static final int[] DEFAULT_LEVELS = {1, 8, 32, 128};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Использование: CityLoadTest <url> <json-файл> [запросов на уровень] [уровни через запятую]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        byte[] payload = Files.readAllBytes(Path.of(args[1]));
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_REQUESTS;
+        int[] levels = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToInt(level -> Integer.parseInt(level.trim())).toArray()
+                : DEFAULT_LEVELS;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/xml")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+
+        // прогрев: JIT и пул соединений не должны попадать в первый замер
+        run(client, request, Math.min(requests, 200), 4);
+
+        System.out.println("concurrency    req/s      p50 ms     p90 ms     p99 ms     max ms   ok   rejected  errors");
+        for (int concurrency : levels) {
+            Report report = run(client, request, requests, concurrency);
+            System.out.println(report.format(concurrency));
+        }
+    }
+
+    static Report run(HttpClient client, HttpRequest request, int requests, int concurrency)
+            throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        for (int worker = 0; worker < concurrency; worker++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        } else if (response.statusCode() == 503) {
+                            rejected.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        return new Report(requests * 1e9 / elapsed, latencies, ok.get(), rejected.get(), errors.get());
+    }
+
+    record Report(double requestsPerSecond, long[] sortedLatencies, int ok, int rejected, int errors) {
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        String format(int concurrency) {
+            return String.format(Locale.ROOT, "%11d %8.0f %11.2f %10.2f %10.2f %10.2f %5d %9d %7d",
+                    concurrency, requestsPerSecond, percentileMillis(50), percentileMillis(90),
+                    percentileMillis(99), percentileMillis(100), ok, rejected, errors);
+        }
+    }
+}
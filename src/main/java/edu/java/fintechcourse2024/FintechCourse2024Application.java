@@ -1,7 +1,21 @@
 package edu.java.fintechcourse2024;
 
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.ConversionLog;
+import edu.java.fintechcourse2024.hw2.LogMode;
+import edu.java.fintechcourse2024.hw2.cache.CityCache;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngine;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngines;
+import edu.java.fintechcourse2024.hw2.metrics.CityParserMetrics;
+import edu.java.fintechcourse2024.hw2.reactive.ReactiveCityConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+import java.util.Locale;
 
 @SpringBootApplication
 public class FintechCourse2024Application {
@@ -10,4 +24,36 @@ public class FintechCourse2024Application {
         SpringApplication.run(FintechCourse2024Application.class, args);
     }
 
+    @Bean
+    public CityReader cityReader() {
+        return CityReader.shared();
+    }
+
+    @Bean
+    public CityParsingEngine cityParsingEngine(@Value("${city.parser.engine:jackson}") String engine) {
+        return CityParsingEngines.byName(engine);
+    }
+
+    @Bean
+    public ReactiveCityConverter reactiveCityConverter(CityReader cityReader) {
+        return new ReactiveCityConverter(cityReader);
+    }
+
+    @Bean
+    public CityParserMetrics cityParserMetrics(MeterRegistry meterRegistry,
+                                               @Value("${city.log.mode:per_file}") String logMode,
+                                               @Value("${city.log.sample-rate:1000}") int sampleRate,
+                                               @Value("${city.log.progress-interval:10s}") Duration progressInterval) {
+        ConversionLog.configure(LogMode.valueOf(logMode.toUpperCase(Locale.ROOT)), sampleRate, progressInterval);
+        return CityParserMetrics.bind(meterRegistry);
+    }
+
+    @Bean
+    public CityCache cityCache(CityReader cityReader,
+                               @Value("${city.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${city.cache.ttl:10m}") Duration ttl,
+                               @Value("${city.cache.revalidate-interval:1s}") Duration revalidateInterval) {
+        return new CityCache(cityReader, maximumSize, ttl, revalidateInterval);
+    }
+
 }
@@ -1,20 +1,75 @@
 package edu.java.fintechcourse2024.hw2;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.java.fintechcourse2024.hw2.batch.CityBatchConverter;
+import edu.java.fintechcourse2024.hw2.batch.CityPipeline;
+import edu.java.fintechcourse2024.hw2.codec.CityCodecs;
 import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.intern.InternStats;
+import edu.java.fintechcourse2024.hw2.intern.SlugInterner;
+import edu.java.fintechcourse2024.hw2.metrics.CityParserMetrics;
+import edu.java.fintechcourse2024.hw2.result.ConversionResult;
+import edu.java.fintechcourse2024.hw2.result.DeadLetterWriter;
+import edu.java.fintechcourse2024.hw2.sink.CityXmlSink;
+import edu.java.fintechcourse2024.hw2.sink.FsyncPolicy;
+import edu.java.fintechcourse2024.hw2.split.ParallelCityArrayParser;
+import edu.java.fintechcourse2024.hw2.writer.CityWriter;
+import edu.java.fintechcourse2024.hw2.writer.CityWriters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
 
 public class CityParser {
 
     private static final Logger log = LoggerFactory.getLogger(CityParser.class);
 
-    public static void main(String[] args) {
+    private static final String DEAD_LETTER_FILE = "failed.ndjson";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 3 && "array".equals(args[2])) {
+            // Один большой JSON-массив -> пронумерованные XML-файлы в каталоге args[1]
+            long maxRecords = args.length > 3 ? Long.parseLong(args[3]) : 100_000;
+            try (CityXmlSink sink = new CityXmlSink(Path.of(args[1]), "cities", 64L << 20, maxRecords,
+                    FsyncPolicy.ON_ROLLOVER)) {
+                convertJsonArrayToXML(new File(args[0]), sink);
+            }
+            return;
+        }
+        if (args.length >= 2) {
+            String mode = args.length > 2 ? args[2] : String.valueOf(Runtime.getRuntime().availableProcessors());
+            try (DeadLetterWriter deadLetters = new DeadLetterWriter(Path.of(args[1], DEAD_LETTER_FILE))) {
+                if ("pipeline".equals(mode)) {
+                    new CityPipeline(CityPipeline.Config.defaults())
+                            .enableDeadLetters(deadLetters)
+                            .convertDirectory(Path.of(args[0]), Path.of(args[1]));
+                } else {
+                    try (CityBatchConverter converter = "virtual".equals(mode)
+                            ? CityBatchConverter.threadPerFile(args.length > 3 ? Integer.parseInt(args[3]) : 10_000)
+                            : new CityBatchConverter(Integer.parseInt(mode))) {
+                        converter.enableDeadLetters(deadLetters)
+                                .convertDirectory(Path.of(args[0]), Path.of(args[1]));
+                    }
+                }
+            } finally {
+                ConversionLog.flush(log);
+            }
+            InternStats intern = SlugInterner.shared().stats();
+            log.info("Канонизация слагов: {} уникальных, доля попаданий {}%, сэкономлено ~{} КБ",
+                    intern.size(), Math.round(intern.hitRate() * 100), intern.bytesSaved() / 1024);
+            return;
+        }
+
         File validJson = new File("src/main/resources/city.json");
         File invalidJson = new File("src/main/resources/city-error.json");
 
@@ -27,59 +82,204 @@ public class CityParser {
         if (city2 != null) {
             saveAsXML(city2, new File("city2.xml"));
         }
+        ConversionLog.flush(log);
     }
 
     public static City fromJson(File jsonFile) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        City city = null;
+        return tryFromJson(jsonFile) instanceof ConversionResult.Success success ? success.city() : null;
+    }
+
+    public static ConversionResult tryFromJson(File jsonFile) {
+        CityParserMetrics metrics = CityParserMetrics.current();
         try {
-            city = objectMapper.readValue(jsonFile, City.class);
-            log.info("JSON успешно прочитан и распарсен из файла: {}", jsonFile.getName());
+            long start = System.nanoTime();
+            byte[] json;
+            try (InputStream in = CityCodecs.openInput(jsonFile.toPath())) {
+                json = in.readAllBytes();
+            }
+            City city = CityReader.shared().read(json);
+            metrics.recordParse(System.nanoTime() - start, json.length);
+            ConversionLog.parsed(log, jsonFile, json.length);
+            return ConversionResult.success(jsonFile.toPath(), city);
         } catch (JsonParseException e) {
+            metrics.recordError(CityParserMetrics.PARSE, e);
+            ConversionLog.failed(log);
             log.error("Ошибка парсинга JSON файла {}: некорректный формат JSON. Подробности: {}", jsonFile.getName(), e.getMessage());
             log.debug("Подробности ошибки парсинга: ", e);
+            return ConversionResult.failure(jsonFile.toPath(), e);
         } catch (JsonMappingException e) {
+            metrics.recordError(CityParserMetrics.PARSE, e);
+            ConversionLog.failed(log);
             log.error("Ошибка маппинга JSON на объект из файла {}: неверная структура JSON или несовпадающие ключи. Подробности: {}", jsonFile.getName(), e.getMessage());
             log.debug("Подробности ошибки маппинга: ", e);
+            return ConversionResult.failure(jsonFile.toPath(), e);
         } catch (IOException e) {
+            metrics.recordError(CityParserMetrics.PARSE, e);
+            ConversionLog.failed(log);
             log.error("Ошибка при чтении JSON файла {}: {}", jsonFile.getName(), e.getMessage());
             log.debug("Подробности ошибки ввода/вывода: ", e);
+            return ConversionResult.failure(jsonFile.toPath(), e);
         } catch (Exception e) {
+            metrics.recordError(CityParserMetrics.PARSE, e);
+            ConversionLog.failed(log);
             log.warn("Произошла непредвиденная ошибка при парсинге JSON из файла {}: {}", jsonFile.getName(), e.getMessage());
             log.debug("Подробности непредвиденной ошибки: ", e);
+            return ConversionResult.failure(jsonFile.toPath(), e);
         }
-        return city;
     }
 
     public static String toXML(City city) {
         if (city == null) {
             log.warn("Город не определен. Возвращаем пустой XML.");
-            return "<City>\n" +
-                    "  <slug></slug>\n" +
-                    "  <coords>\n" +
-                    "    <lat></lat>\n" +
-                    "    <lon></lon>\n" +
-                    "  </coords>\n" +
-                    "</City>";
-        }
-
-        var coords = city.coords();
-        return "<City>\n" +
-                "  <slug>" + city.slug() + "</slug>\n" +
-                "  <coords>\n" +
-                "    <lat>" + (coords != null ? coords.lat() : "N/A") + "</lat>\n" +
-                "    <lon>" + (coords != null ? coords.lon() : "N/A") + "</lon>\n" +
-                "  </coords>\n" +
-                "</City>";
+        }
+        long start = System.nanoTime();
+        String xml = CityXmlWriter.append(city, new StringBuilder(128)).toString();
+        CityParserMetrics.current().recordSerialize(System.nanoTime() - start);
+        return xml;
     }
 
     public static void saveAsXML(City city, File file) {
+        CityParserMetrics metrics = CityParserMetrics.current();
         try {
-            java.nio.file.Files.writeString(file.toPath(), toXML(city));
-            log.info("XML успешно сохранен в файл {}", file.getAbsolutePath());
+            byte[] xml = toXML(city).getBytes(StandardCharsets.UTF_8);
+            long start = System.nanoTime();
+            CityCodecs.write(file.toPath(), xml);
+            metrics.recordWrite(System.nanoTime() - start, xml.length);
+            ConversionLog.saved(log, file, xml.length);
         } catch (IOException e) {
+            metrics.recordError(CityParserMetrics.WRITE, e);
+            ConversionLog.failed(log);
             log.error("Ошибка при сохранении XML в файл {}: {}", file.getAbsolutePath(), e.getMessage());
             log.debug("Подробности ошибки сохранения XML: ", e);
         }
     }
+
+    public static long readJsonArray(File jsonFile, Consumer<City> consumer) throws IOException {
+        try (InputStream in = CityCodecs.openInput(jsonFile.toPath());
+             JsonParser parser = CityReader.shared().factory().createParser(in)) {
+            return readJsonArray(parser, consumer);
+        }
+    }
+
+    public static long readJsonArrayMapped(File jsonFile, Consumer<City> consumer) throws IOException {
+        try (InputStream in = MappedInputStream.open(jsonFile.toPath());
+             JsonParser parser = CityReader.shared().factory().createParser(in)) {
+            return readJsonArray(parser, consumer);
+        }
+    }
+
+    public static long readJsonArrayParallel(File jsonFile, boolean preserveOrder, Consumer<City> consumer)
+            throws IOException {
+        return new ParallelCityArrayParser().parse(jsonFile.toPath(), preserveOrder, consumer);
+    }
+
+    public static long readJsonArray(JsonParser parser, Consumer<City> consumer) throws IOException {
+        CityReader reader = CityReader.shared();
+        long count = 0;
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Ожидался массив городов в начале файла");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(reader.read(parser));
+            count++;
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Ожидался объект города или конец массива");
+        }
+        return count;
+    }
+
+    // Тот же XmlCityWriter, что и у convertJsonArray: вывод не зависит от выбранного API.
+    // Файл появляется только после разбора всего входа, при ошибке обрезанный XML не остаётся
+    public static long convertJsonArrayToXML(File jsonFile, File xmlFile) {
+        long converted = 0;
+        try (CityWriter writer = CityWriters.open(xmlFile.toPath(), CityWriters.Format.XML)) {
+            long count = readJsonArray(jsonFile, city -> {
+                try {
+                    writer.write(city);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.commit();
+            converted = count;
+            log.info("Сконвертировано {} городов из файла {} в файл {}", count, jsonFile.getName(), xmlFile.getAbsolutePath());
+        } catch (JsonParseException e) {
+            log.error("Ошибка парсинга JSON файла {}: некорректный формат JSON. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки парсинга: ", e);
+        } catch (JsonMappingException e) {
+            log.error("Ошибка маппинга JSON на объект из файла {}: неверная структура JSON или несовпадающие ключи. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки маппинга: ", e);
+        } catch (IOException e) {
+            log.error("Ошибка при потоковой конвертации файла {} в XML: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки потоковой конвертации: ", e);
+        } catch (UncheckedIOException e) {
+            log.error("Ошибка при записи XML в файл {}: {}", xmlFile.getAbsolutePath(), e.getCause().getMessage());
+            log.debug("Подробности ошибки записи XML: ", e.getCause());
+        }
+        return converted;
+    }
+
+    // Большой массив раскладывается по пронумерованным XML-файлам с ротацией по числу записей и размеру.
+    // В отличие от convertJsonArrayToXML файлы появляются по мере записи: уже закрытые при ротации остаются
+    public static long convertJsonArrayToXML(File jsonFile, CityXmlSink sink) {
+        long before = sink.records();
+        try {
+            readJsonArray(jsonFile, city -> {
+                try {
+                    sink.write(city);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            sink.flush();
+            log.info("Сконвертировано {} городов из файла {} в {}", sink.records() - before, jsonFile.getName(), sink.files());
+        } catch (JsonParseException e) {
+            log.error("Ошибка парсинга JSON файла {}: некорректный формат JSON. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки парсинга: ", e);
+        } catch (JsonMappingException e) {
+            log.error("Ошибка маппинга JSON на объект из файла {}: неверная структура JSON или несовпадающие ключи. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки маппинга: ", e);
+        } catch (IOException e) {
+            log.error("Ошибка при потоковой конвертации файла {} в XML: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки потоковой конвертации: ", e);
+        } catch (UncheckedIOException e) {
+            log.error("Ошибка при записи XML в {}: {}", sink.files(), e.getCause().getMessage());
+            log.debug("Подробности ошибки записи XML: ", e.getCause());
+        }
+        return sink.records() - before;
+    }
+
+    public static long convertJsonArray(File jsonFile, List<Path> outputs) {
+        if (outputs.isEmpty()) {
+            throw new IllegalArgumentException("Не указан ни один файл для вывода городов");
+        }
+        long converted = 0;
+        try (CityWriter writer = CityWriters.open(outputs)) {
+            long count = readJsonArray(jsonFile, city -> {
+                try {
+                    writer.write(city);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            // Файлы появляются только после разбора всего входа; при ошибке close() их удалит
+            writer.commit();
+            converted = count;
+            log.info("Сконвертировано {} городов из файла {} в {}", count, jsonFile.getName(), outputs);
+        } catch (JsonParseException e) {
+            log.error("Ошибка парсинга JSON файла {}: некорректный формат JSON. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки парсинга: ", e);
+        } catch (JsonMappingException e) {
+            log.error("Ошибка маппинга JSON на объект из файла {}: неверная структура JSON или несовпадающие ключи. Подробности: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки маппинга: ", e);
+        } catch (IOException e) {
+            log.error("Ошибка при потоковой конвертации файла {}: {}", jsonFile.getName(), e.getMessage());
+            log.debug("Подробности ошибки потоковой конвертации: ", e);
+        } catch (UncheckedIOException e) {
+            log.error("Ошибка при записи результатов конвертации {}: {}", outputs, e.getCause().getMessage());
+            log.debug("Подробности ошибки записи: ", e.getCause());
+        }
+        return converted;
+    }
 }
@@ -0,0 +1,52 @@
+package edu.java.fintechcourse2024.hw2;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class CityReader {
+
+    private static final CityReader SHARED = new CityReader(new ObjectMapper());
+
+    private final ObjectReader reader;
+
+    public CityReader(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(City.class);
+    }
+
+    public static CityReader shared() {
+        return SHARED;
+    }
+
+    public JsonFactory factory() {
+        return reader.getFactory();
+    }
+
+    public City read(File jsonFile) throws IOException {
+        return reader.readValue(jsonFile);
+    }
+
+    public City readMapped(File jsonFile) throws IOException {
+        try (InputStream in = MappedInputStream.open(jsonFile.toPath())) {
+            return reader.readValue(in);
+        }
+    }
+
+    public City read(InputStream in) throws IOException {
+        return reader.readValue(in);
+    }
+
+    public City read(byte[] json) throws IOException {
+        return reader.readValue(json);
+    }
+
+    public City read(JsonParser parser) throws IOException {
+        return reader.readValue(parser);
+    }
+}
@@ -0,0 +1,58 @@
+package edu.java.fintechcourse2024.hw2;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+public final class CityXmlWriter {
+
+    private static final String EMPTY_CITY = "<City>\n" +
+            "  <slug></slug>\n" +
+            "  <coords>\n" +
+            "    <lat></lat>\n" +
+            "    <lon></lon>\n" +
+            "  </coords>\n" +
+            "</City>";
+
+    private CityXmlWriter() {
+    }
+
+    public static StringBuilder append(City city, StringBuilder out) {
+        if (city == null) {
+            return out.append(EMPTY_CITY);
+        }
+
+        out.append("<City>\n  <slug>");
+        appendEscaped(city.slug(), out);
+        out.append("</slug>\n  <coords>\n    <lat>");
+        var coords = city.coords();
+        if (coords != null) {
+            out.append(coords.lat()).append("</lat>\n    <lon>").append(coords.lon());
+        } else {
+            out.append("N/A</lat>\n    <lon>N/A");
+        }
+        return out.append("</lon>\n  </coords>\n</City>");
+    }
+
+    public static void appendEscaped(CharSequence text, StringBuilder out) {
+        if (text == null) {
+            out.append((String) null);
+            return;
+        }
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&apos;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(text, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, length);
+    }
+}
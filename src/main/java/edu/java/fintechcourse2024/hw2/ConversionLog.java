@@ -0,0 +1,125 @@
+package edu.java.fintechcourse2024.hw2;
+
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ConversionLog {
+
+    public static final Duration DEFAULT_PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private static volatile LogMode mode =
+            LogMode.valueOf(System.getProperty("city.log.mode", "per_file").toUpperCase(Locale.ROOT));
+    private static volatile int sampleRate = 1000;
+    private static volatile long intervalNanos = DEFAULT_PROGRESS_INTERVAL.toNanos();
+
+    private static final AtomicLong parsedSamples = new AtomicLong();
+    private static final AtomicLong savedSamples = new AtomicLong();
+    private static final LongAdder parsed = new LongAdder();
+    private static final LongAdder saved = new LongAdder();
+    private static final LongAdder bytesIn = new LongAdder();
+    private static final LongAdder bytesOut = new LongAdder();
+    private static final LongAdder errors = new LongAdder();
+    private static final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+
+    private ConversionLog() {
+    }
+
+    public static void configure(LogMode logMode, int rate) {
+        configure(logMode, rate, DEFAULT_PROGRESS_INTERVAL);
+    }
+
+    public static void configure(LogMode logMode, int rate, Duration progressInterval) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Частота выборки логов должна быть положительной: " + rate);
+        }
+        if (progressInterval.isNegative() || progressInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал отчёта о прогрессе должен быть положительным: " + progressInterval);
+        }
+        mode = logMode;
+        sampleRate = rate;
+        intervalNanos = progressInterval.toNanos();
+    }
+
+    public static LogMode mode() {
+        return mode;
+    }
+
+    public static void parsed(Logger log, File jsonFile, long bytes) {
+        switch (mode) {
+            case PER_FILE -> log.info("JSON успешно прочитан и распарсен из файла: {}", jsonFile.getName());
+            case SAMPLED -> {
+                long count = parsedSamples.incrementAndGet();
+                if (count % sampleRate == 0) {
+                    log.info("JSON успешно прочитан и распарсен из файла: {} (всего распарсено: {})", jsonFile.getName(), count);
+                }
+            }
+            case AGGREGATED -> {
+                parsed.increment();
+                bytesIn.add(bytes);
+                reportIfDue(log);
+            }
+        }
+    }
+
+    public static void saved(Logger log, File xmlFile, long bytes) {
+        switch (mode) {
+            case PER_FILE -> log.info("XML успешно сохранен в файл {}", xmlFile.getAbsolutePath());
+            case SAMPLED -> {
+                long count = savedSamples.incrementAndGet();
+                if (count % sampleRate == 0) {
+                    log.info("XML успешно сохранен в файл {} (всего сохранено: {})", xmlFile.getAbsolutePath(), count);
+                }
+            }
+            case AGGREGATED -> {
+                saved.increment();
+                bytesOut.add(bytes);
+                reportIfDue(log);
+            }
+        }
+    }
+
+    // Сами ошибки логируются вызывающим кодом во всех режимах; здесь они только попадают в сводку.
+    public static void failed(Logger log) {
+        if (mode == LogMode.AGGREGATED) {
+            errors.increment();
+            reportIfDue(log);
+        }
+    }
+
+    // Выводит накопленную сводку, не дожидаясь интервала; вызывается в конце пакетной конвертации,
+    // иначе хвост прогресса за последние секунды теряется.
+    public static void flush(Logger log) {
+        if (mode != LogMode.AGGREGATED || parsed.sum() + saved.sum() + errors.sum() == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        report(log, now, lastReport.getAndSet(now));
+    }
+
+    private static void reportIfDue(Logger log) {
+        long now = System.nanoTime();
+        long last = lastReport.get();
+        if (now - last < intervalNanos || !lastReport.compareAndSet(last, now)) {
+            return;
+        }
+        report(log, now, last);
+    }
+
+    private static void report(Logger log, long now, long last) {
+        double seconds = Math.max(now - last, 1) / 1e9;
+        long parsedFiles = parsed.sumThenReset();
+        long savedFiles = saved.sumThenReset();
+        long in = bytesIn.sumThenReset();
+        long out = bytesOut.sumThenReset();
+        log.info(String.format(Locale.ROOT,
+                "Прогресс за %.1f с: распарсено JSON %d (%.0f файлов/с, %.1f МБ/с), сохранено XML %d (%.0f файлов/с, %.1f МБ/с), ошибок %d",
+                seconds, parsedFiles, parsedFiles / seconds, in / seconds / (1024 * 1024),
+                savedFiles, savedFiles / seconds, out / seconds / (1024 * 1024), errors.sumThenReset()));
+    }
+}
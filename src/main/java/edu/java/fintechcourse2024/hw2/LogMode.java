@@ -0,0 +1,5 @@
+package edu.java.fintechcourse2024.hw2;
+
+public enum LogMode {
+    PER_FILE, SAMPLED, AGGREGATED
+}
@@ -0,0 +1,109 @@
+package edu.java.fintechcourse2024.hw2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedInputStream extends InputStream {
+
+    public static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long chunkSize;
+    private long chunkStart;
+    private MappedByteBuffer chunk;
+
+    private MappedInputStream(FileChannel channel, long chunkSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.chunkStart = 0;
+        this.chunk = map(0);
+    }
+
+    public static MappedInputStream open(Path file) throws IOException {
+        return open(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static MappedInputStream open(Path file, long chunkSize) throws IOException {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Размер окна отображения должен быть в диапазоне (0, 2 ГБ): " + chunkSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedInputStream(channel, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return chunk.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.remaining());
+        chunk.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long position = Math.min(size, chunkStart + chunk.position() + Math.max(n, 0));
+        long skipped = position - chunkStart - chunk.position();
+        if (position < chunkStart + chunk.limit()) {
+            chunk.position((int) (position - chunkStart));
+        } else {
+            chunkStart = position;
+            chunk = map(position);
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - chunkStart - chunk.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        channel.close();
+    }
+
+    private boolean ensureRemaining() throws IOException {
+        if (chunk == null) {
+            throw new IOException("Поток закрыт");
+        }
+        if (chunk.hasRemaining()) {
+            return true;
+        }
+        long next = chunkStart + chunk.limit();
+        if (next >= size) {
+            return false;
+        }
+        chunkStart = next;
+        chunk = map(next);
+        return true;
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+    }
+}
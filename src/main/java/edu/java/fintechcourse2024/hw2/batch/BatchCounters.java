@@ -0,0 +1,33 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+final class BatchCounters {
+
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+    private final LongAdder mappingErrors = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder unexpectedErrors = new LongAdder();
+    private final LongAdder quarantined = new LongAdder();
+
+    void record(Outcome outcome) {
+        switch (outcome) {
+            case CONVERTED -> converted.increment();
+            case PARSE_ERROR -> parseErrors.increment();
+            case MAPPING_ERROR -> mappingErrors.increment();
+            case IO_ERROR -> ioErrors.increment();
+            case UNEXPECTED_ERROR -> unexpectedErrors.increment();
+        }
+    }
+
+    void recordQuarantined() {
+        quarantined.increment();
+    }
+
+    BatchResult toResult(Duration elapsed) {
+        return new BatchResult(converted.sum(), parseErrors.sum(), mappingErrors.sum(),
+                ioErrors.sum(), unexpectedErrors.sum(), quarantined.sum(), elapsed);
+    }
+}
@@ -0,0 +1,20 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import java.time.Duration;
+
+public record BatchResult(long converted,
+                          long parseErrors,
+                          long mappingErrors,
+                          long ioErrors,
+                          long unexpectedErrors,
+                          long quarantined,
+                          Duration elapsed) {
+
+    public long failed() {
+        return parseErrors + mappingErrors + ioErrors + unexpectedErrors;
+    }
+
+    public long total() {
+        return converted + failed();
+    }
+}
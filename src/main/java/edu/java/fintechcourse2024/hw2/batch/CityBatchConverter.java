@@ -0,0 +1,281 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityXmlWriter;
+import edu.java.fintechcourse2024.hw2.ConversionLog;
+import edu.java.fintechcourse2024.hw2.LogMode;
+import edu.java.fintechcourse2024.hw2.codec.CityCodecs;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngine;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngines;
+import edu.java.fintechcourse2024.hw2.result.ConversionResult;
+import edu.java.fintechcourse2024.hw2.result.DeadLetterWriter;
+import edu.java.fintechcourse2024.hw2.result.FailureCategory;
+import edu.java.fintechcourse2024.hw2.validation.CityJsonValidator;
+import edu.java.fintechcourse2024.hw2.validation.CityQuarantine;
+import edu.java.fintechcourse2024.hw2.validation.ValidationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class CityBatchConverter implements AutoCloseable {
+
+    public static final String DEFAULT_PATTERN = "city*.{json,json.gz,json.zst}";
+
+    private static final Logger log = LoggerFactory.getLogger(CityBatchConverter.class);
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final CityParsingEngine engine;
+    private volatile boolean preValidation;
+    private volatile Path quarantineDir;
+    private volatile DeadLetterWriter deadLetters;
+
+    public CityBatchConverter(int parallelism) {
+        this(parallelism, parallelism * 4);
+    }
+
+    public CityBatchConverter(int parallelism, int maxInFlight) {
+        this(new ForkJoinPool(parallelism), maxInFlight);
+    }
+
+    public CityBatchConverter(ExecutorService executor, int maxInFlight) {
+        this(executor, maxInFlight, CityParsingEngines.defaultEngine());
+    }
+
+    public CityBatchConverter(ExecutorService executor, int maxInFlight, CityParsingEngine engine) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight должен быть положительным: " + maxInFlight);
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.engine = engine;
+    }
+
+    public static CityBatchConverter threadPerFile(int maxInFlight) {
+        return new CityBatchConverter(ConversionExecutors.threadPerFile(maxInFlight), maxInFlight);
+    }
+
+    public CityBatchConverter enablePreValidation(Path quarantineDir) {
+        this.preValidation = true;
+        this.quarantineDir = quarantineDir;
+        return this;
+    }
+
+    public CityBatchConverter enableDeadLetters(DeadLetterWriter deadLetters) {
+        this.deadLetters = deadLetters;
+        return this;
+    }
+
+    public BatchResult convertDirectory(Path inputDir, Path outputDir) throws IOException, InterruptedException {
+        return convertDirectory(inputDir, outputDir, DEFAULT_PATTERN);
+    }
+
+    public BatchResult convertDirectory(Path inputDir, Path outputDir, String pattern)
+            throws IOException, InterruptedException {
+        try (Stream<Path> files = inputFiles(inputDir, pattern)) {
+            return convertFiles(files.iterator(), inputDir, outputDir, null);
+        }
+    }
+
+    static Stream<Path> inputFiles(Path inputDir, String pattern) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return Files.walk(inputDir)
+                .filter(path -> matcher.matches(path.getFileName()))
+                .filter(Files::isRegularFile);
+    }
+
+    public BatchResult convertFiles(Iterable<Path> jsonFiles, Path inputDir, Path outputDir)
+            throws IOException, InterruptedException {
+        return convertFiles(jsonFiles.iterator(), inputDir, outputDir, null);
+    }
+
+    // Сообщает итог по каждому файлу вместе с отпечатком именно тех байтов, которые были сконвертированы
+    BatchResult convertFiles(Iterable<Path> jsonFiles, Path inputDir, Path outputDir, Consumer<FileConversion> onFile)
+            throws IOException, InterruptedException {
+        return convertFiles(jsonFiles.iterator(), inputDir, outputDir, onFile);
+    }
+
+    private BatchResult convertFiles(Iterator<Path> jsonFiles, Path inputDir, Path outputDir,
+                                     Consumer<FileConversion> onFile) throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        BatchCounters counters = new BatchCounters();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long start = System.nanoTime();
+
+        try {
+            while (jsonFiles.hasNext()) {
+                Path jsonFile = jsonFiles.next();
+                Path xmlFile = outputDir.resolve(xmlName(inputDir.relativize(jsonFile)));
+                inFlight.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            counters.record(convertFile(inputDir, jsonFile, xmlFile, counters, onFile));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        } finally {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        ConversionLog.flush(log);
+        BatchResult result = counters.toResult(Duration.ofNanos(System.nanoTime() - start));
+        log.info("Пакетная конвертация {} завершена: успешно {}, с ошибками {} за {} мс",
+                inputDir, result.converted(), result.failed(), result.elapsed().toMillis());
+        return result;
+    }
+
+    private Outcome convertFile(Path inputDir, Path jsonFile, Path xmlFile, BatchCounters counters,
+                                Consumer<FileConversion> onFile) {
+        City city;
+        long jsonBytes;
+        ConversionManifest.Fingerprint fingerprint = null;
+        try {
+            if (preValidation || onFile != null) {
+                // Время изменения читается до содержимого: если файл поменяется во время чтения,
+                // отпечаток не совпадёт с диском и файл будет сконвертирован повторно
+                long modifiedMillis = Files.getLastModifiedTime(jsonFile).toMillis();
+                byte[] raw = Files.readAllBytes(jsonFile);
+                if (onFile != null) {
+                    fingerprint = ConversionManifest.Fingerprint.of(raw, modifiedMillis);
+                }
+                byte[] json = CityCodecs.decode(raw);
+                if (preValidation) {
+                    ValidationResult validation = CityJsonValidator.validate(json);
+                    if (!validation.isValid()) {
+                        return report(onFile, jsonFile, reject(inputDir, jsonFile, validation, counters), null);
+                    }
+                }
+                city = engine.parse(json);
+                jsonBytes = json.length;
+            } else if (CityCodecs.detect(jsonFile) == CityCodecs.Codec.NONE) {
+                city = engine.parse(jsonFile);
+                // Размер нужен только для сводки; в остальных режимах лишний stat не делаем
+                jsonBytes = ConversionLog.mode() == LogMode.AGGREGATED ? Files.size(jsonFile) : 0;
+            } else {
+                byte[] json = CityCodecs.readAllBytes(jsonFile);
+                city = engine.parse(json);
+                jsonBytes = json.length;
+            }
+        } catch (IOException | RuntimeException e) {
+            deadLetter(jsonFile, e);
+            return report(onFile, jsonFile, parseFailure(jsonFile, e), null);
+        }
+        ConversionLog.parsed(log, jsonFile.toFile(), jsonBytes);
+
+        try {
+            Files.createDirectories(xmlFile.getParent());
+            byte[] xml = CityXmlWriter.append(city, new StringBuilder(128)).toString().getBytes(StandardCharsets.UTF_8);
+            CityCodecs.write(xmlFile, xml);
+            ConversionLog.saved(log, xmlFile.toFile(), xml.length);
+            return report(onFile, jsonFile, Outcome.CONVERTED, fingerprint);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении XML в файл {}: {}", xmlFile, e.getMessage());
+            deadLetter(jsonFile, e);
+            return report(onFile, jsonFile, Outcome.IO_ERROR, null);
+        }
+    }
+
+    private static Outcome report(Consumer<FileConversion> onFile, Path jsonFile, Outcome outcome,
+                                  ConversionManifest.Fingerprint fingerprint) {
+        if (outcome != Outcome.CONVERTED) {
+            ConversionLog.failed(log);
+        }
+        if (onFile != null) {
+            onFile.accept(new FileConversion(jsonFile, outcome, fingerprint));
+        }
+        return outcome;
+    }
+
+    private Outcome reject(Path inputDir, Path jsonFile, ValidationResult validation, BatchCounters counters) {
+        log.error("Файл {} отклонён до парсинга: {}", jsonFile, validation);
+        DeadLetterWriter writer = deadLetters;
+        if (writer != null) {
+            FailureCategory category = validation.kind() == ValidationResult.Kind.SYNTAX
+                    ? FailureCategory.PARSE
+                    : FailureCategory.MAPPING;
+            writer.append(new ConversionResult.Failure(jsonFile, category, validation.offset(),
+                    validation.line(), validation.column(), validation.message(), null));
+        }
+        Path quarantine = quarantineDir;
+        if (quarantine != null) {
+            try {
+                CityQuarantine.move(jsonFile, inputDir, quarantine, validation);
+                counters.recordQuarantined();
+            } catch (IOException e) {
+                log.error("Не удалось переместить файл {} в карантин {}: {}", jsonFile, quarantine, e.getMessage());
+            }
+        }
+        return validation.kind() == ValidationResult.Kind.SYNTAX ? Outcome.PARSE_ERROR : Outcome.MAPPING_ERROR;
+    }
+
+    private void deadLetter(Path jsonFile, Exception e) {
+        DeadLetterWriter writer = deadLetters;
+        if (writer != null) {
+            writer.append(ConversionResult.failure(jsonFile, e));
+        }
+    }
+
+    static Outcome parseFailure(Path jsonFile, Exception e) {
+        if (e instanceof JsonParseException parseException) {
+            log.error("Ошибка парсинга JSON файла {}: некорректный формат JSON. Подробности: {}", jsonFile, parseException.getOriginalMessage());
+            return Outcome.PARSE_ERROR;
+        }
+        if (e instanceof JsonMappingException mappingException) {
+            log.error("Ошибка маппинга JSON на объект из файла {}: неверная структура JSON или несовпадающие ключи. Подробности: {}", jsonFile, mappingException.getOriginalMessage());
+            return Outcome.MAPPING_ERROR;
+        }
+        if (e instanceof IOException) {
+            log.error("Ошибка при чтении JSON файла {}: {}", jsonFile, e.getMessage());
+            return Outcome.IO_ERROR;
+        }
+        log.warn("Произошла непредвиденная ошибка при парсинге JSON из файла {}: {}", jsonFile, e.getMessage());
+        log.debug("Подробности непредвиденной ошибки: ", e);
+        return Outcome.UNEXPECTED_ERROR;
+    }
+
+    // Сжатие входа сохраняется и для XML: city.json.gz -> city.xml.gz
+    static Path xmlName(Path relativeJson) {
+        String name = CityCodecs.baseName(relativeJson);
+        int dot = name.lastIndexOf('.');
+        String extension = CityCodecs.detect(relativeJson).extension();
+        return relativeJson.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".xml" + extension);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import edu.java.fintechcourse2024.hw2.CityXmlWriter;
+import edu.java.fintechcourse2024.hw2.ConversionLog;
+import edu.java.fintechcourse2024.hw2.codec.CityCodecs;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngine;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngines;
+import edu.java.fintechcourse2024.hw2.result.ConversionResult;
+import edu.java.fintechcourse2024.hw2.result.DeadLetterWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+public class CityPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(CityPipeline.class);
+
+    private static final Item POISON = new Item(null, null);
+
+    private final Config config;
+    private final CityParsingEngine engine;
+    private final List<Stage> stages = new ArrayList<>();
+    private volatile DeadLetterWriter deadLetters;
+
+    public CityPipeline(Config config) {
+        this(config, CityParsingEngines.defaultEngine());
+    }
+
+    public CityPipeline(Config config, CityParsingEngine engine) {
+        this.config = config;
+        this.engine = engine;
+    }
+
+    public CityPipeline enableDeadLetters(DeadLetterWriter deadLetters) {
+        this.deadLetters = deadLetters;
+        return this;
+    }
+
+    public BatchResult convertDirectory(Path inputDir, Path outputDir) throws IOException, InterruptedException {
+        return convertDirectory(inputDir, outputDir, CityBatchConverter.DEFAULT_PATTERN);
+    }
+
+    public BatchResult convertDirectory(Path inputDir, Path outputDir, String pattern)
+            throws IOException, InterruptedException {
+        try (Stream<Path> files = CityBatchConverter.inputFiles(inputDir, pattern)) {
+            return run(files::iterator, inputDir, outputDir);
+        }
+    }
+
+    public BatchResult run(Iterable<Path> jsonFiles, Path inputDir, Path outputDir)
+            throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        BatchCounters counters = new BatchCounters();
+        long start = System.nanoTime();
+
+        int capacity = config.queueCapacity();
+        BiConsumer<Item, Throwable> onError = (item, e) -> unexpected(item, e, counters);
+        Stage writer = new Stage("write", config.writers(), capacity, null, onError, item -> write(item, counters));
+        Stage serializer = new Stage("serialize", config.serializers(), capacity, writer, onError, this::serialize);
+        Stage parser = new Stage("parse", config.parsers(), capacity, serializer, onError, item -> parse(item, counters));
+        Stage reader = new Stage("read", config.readers(), capacity, parser, onError, item -> read(item, counters));
+        synchronized (stages) {
+            stages.clear();
+            stages.addAll(List.of(reader, parser, serializer, writer));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (Stage stage : List.of(reader, parser, serializer, writer)) {
+            threads.addAll(stage.start());
+        }
+        try {
+            for (Path jsonFile : jsonFiles) {
+                reader.submit(new Item(jsonFile, outputDir.resolve(CityBatchConverter.xmlName(inputDir.relativize(jsonFile)))));
+            }
+        } finally {
+            reader.finish();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        ConversionLog.flush(log);
+        BatchResult result = counters.toResult(Duration.ofNanos(System.nanoTime() - start));
+        log.info("Конвейерная конвертация {} завершена: успешно {}, с ошибками {} за {} мс",
+                inputDir, result.converted(), result.failed(), result.elapsed().toMillis());
+        return result;
+    }
+
+    public List<StageMetrics> metrics() {
+        synchronized (stages) {
+            return stages.stream().map(Stage::metrics).toList();
+        }
+    }
+
+    private Item read(Item item, BatchCounters counters) {
+        try {
+            item.json = CityCodecs.readAllBytes(item.jsonFile);
+            return item;
+        } catch (IOException e) {
+            deadLetter(item.jsonFile, e);
+            counters.record(CityBatchConverter.parseFailure(item.jsonFile, e));
+            ConversionLog.failed(log);
+            return null;
+        }
+    }
+
+    private Item parse(Item item, BatchCounters counters) {
+        try {
+            item.city = engine.parse(item.json);
+            ConversionLog.parsed(log, item.jsonFile.toFile(), item.json.length);
+            item.json = null;
+            return item;
+        } catch (IOException | RuntimeException e) {
+            deadLetter(item.jsonFile, e);
+            counters.record(CityBatchConverter.parseFailure(item.jsonFile, e));
+            ConversionLog.failed(log);
+            return null;
+        }
+    }
+
+    private Item serialize(Item item) {
+        item.xml = CityXmlWriter.append(item.city, new StringBuilder(128)).toString().getBytes(StandardCharsets.UTF_8);
+        item.city = null;
+        return item;
+    }
+
+    private Item write(Item item, BatchCounters counters) {
+        try {
+            Files.createDirectories(item.xmlFile.getParent());
+            CityCodecs.write(item.xmlFile, item.xml);
+            ConversionLog.saved(log, item.xmlFile.toFile(), item.xml.length);
+            counters.record(Outcome.CONVERTED);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении XML в файл {}: {}", item.xmlFile, e.getMessage());
+            deadLetter(item.jsonFile, e);
+            counters.record(Outcome.IO_ERROR);
+            ConversionLog.failed(log);
+        }
+        return null;
+    }
+
+    private void unexpected(Item item, Throwable e, BatchCounters counters) {
+        counters.record(Outcome.UNEXPECTED_ERROR);
+        ConversionLog.failed(log);
+        deadLetter(item.jsonFile, e);
+    }
+
+    private void deadLetter(Path jsonFile, Throwable e) {
+        DeadLetterWriter writer = deadLetters;
+        if (writer != null) {
+            writer.append(ConversionResult.failure(jsonFile, e));
+        }
+    }
+
+    public record Config(int readers, int parsers, int serializers, int writers, int queueCapacity) {
+
+        public Config {
+            if (readers <= 0 || parsers <= 0 || serializers <= 0 || writers <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("Параметры конвейера должны быть положительными");
+            }
+        }
+
+        public static Config defaults() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return new Config(4, cores, Math.max(1, cores / 2), 4, 1024);
+        }
+    }
+
+    private static final class Item {
+        private final Path jsonFile;
+        private final Path xmlFile;
+        private byte[] json;
+        private City city;
+        private byte[] xml;
+
+        Item(Path jsonFile, Path xmlFile) {
+            this.jsonFile = jsonFile;
+            this.xmlFile = xmlFile;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageFunction {
+        Item apply(Item item);
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final int workers;
+        private final int capacity;
+        private final BlockingQueue<Item> queue;
+        private final Stage next;
+        private final StageFunction function;
+        private final BiConsumer<Item, Throwable> onError;
+        private final AtomicInteger alive = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        Stage(String name, int workers, int capacity, Stage next, BiConsumer<Item, Throwable> onError,
+              StageFunction function) {
+            this.name = name;
+            this.workers = workers;
+            this.capacity = capacity;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.next = next;
+            this.function = function;
+            this.onError = onError;
+        }
+
+        List<Thread> start() {
+            alive.set(workers);
+            List<Thread> threads = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                Thread thread = new Thread(this::work, "city-pipeline-" + name + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            return threads;
+        }
+
+        void submit(Item item) throws InterruptedException {
+            queue.put(item);
+            maxDepth.accumulateAndGet(queue.size(), Math::max);
+        }
+
+        void finish() throws InterruptedException {
+            for (int i = 0; i < workers; i++) {
+                queue.put(POISON);
+            }
+        }
+
+        StageMetrics metrics() {
+            return new StageMetrics(name, workers, processed.sum(), errors.sum(), queue.size(),
+                    maxDepth.get(), capacity);
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    Item item = queue.take();
+                    if (item == POISON) {
+                        break;
+                    }
+                    Item result;
+                    try {
+                        result = function.apply(item);
+                    } catch (Throwable e) {
+                        // Необработанная ошибка не должна останавливать воркер: иначе очередь встанет
+                        errors.increment();
+                        log.error("Непредвиденная ошибка на этапе {} при обработке файла {}", name, item.jsonFile, e);
+                        try {
+                            onError.accept(item, e);
+                        } catch (Throwable handlerError) {
+                            // Например, журнал ошибок уже закрыт - воркер всё равно должен продолжить
+                            log.error("Не удалось обработать ошибку этапа {} для файла {}", name, item.jsonFile,
+                                    handlerError);
+                        }
+                        continue;
+                    } finally {
+                        processed.increment();
+                    }
+                    if (result != null && next != null) {
+                        next.submit(result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (alive.decrementAndGet() == 0 && next != null) {
+                    try {
+                        next.finish();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngine;
+import edu.java.fintechcourse2024.hw2.result.DeadLetterWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+@ConditionalOnProperty(name = "city.watch.enabled", havingValue = "true")
+public class CityWatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CityWatchService.class);
+
+    private static final String MANIFEST_FILE = ".city-manifest";
+    private static final String DEAD_LETTER_FILE = "failed.ndjson";
+
+    private final Path inputDir;
+    private final Path outputDir;
+    private final PathMatcher matcher;
+    private final long debounceNanos;
+    private final boolean deleteOrphans;
+    private final CityBatchConverter converter;
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "city-watch-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ConversionManifest manifest;
+    private DeadLetterWriter deadLetters;
+    private WatchService watchService;
+
+    public CityWatchService(@Value("${city.watch.input-dir}") Path inputDir,
+                            @Value("${city.watch.output-dir}") Path outputDir,
+                            @Value("${city.watch.pattern:" + CityBatchConverter.DEFAULT_PATTERN + "}") String pattern,
+                            @Value("${city.watch.debounce:500ms}") Duration debounce,
+                            @Value("${city.watch.parallelism:0}") int parallelism,
+                            @Value("${city.watch.delete-orphans:true}") boolean deleteOrphans,
+                            CityParsingEngine engine) {
+        this.inputDir = inputDir.toAbsolutePath().normalize();
+        this.outputDir = outputDir.toAbsolutePath().normalize();
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        this.debounceNanos = debounce.toNanos();
+        this.deleteOrphans = deleteOrphans;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.converter = new CityBatchConverter(new ForkJoinPool(threads), threads * 4, engine);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(inputDir);
+        Files.createDirectories(outputDir);
+        manifest = ConversionManifest.load(outputDir.resolve(MANIFEST_FILE));
+        deadLetters = new DeadLetterWriter(outputDir.resolve(DEAD_LETTER_FILE));
+        converter.enableDeadLetters(deadLetters);
+        watchService = inputDir.getFileSystem().newWatchService();
+        inputDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        scanAll();
+
+        Thread watcher = new Thread(this::watchLoop, "city-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(50), debounceNanos / 2);
+        scheduler.scheduleWithFixedDelay(this::flushSafely, period, period, TimeUnit.NANOSECONDS);
+        log.info("Наблюдение за каталогом {} запущено, XML сохраняется в {}", inputDir, outputDir);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        converter.close();
+        if (deadLetters != null) {
+            deadLetters.close();
+        }
+        if (manifest != null) {
+            manifest.save();
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    log.warn("Переполнение очереди событий каталога {}, выполняется полное сканирование", inputDir);
+                    scanAll();
+                    continue;
+                }
+                Path file = inputDir.resolve((Path) event.context());
+                if (!matcher.matches(file.getFileName())) {
+                    continue;
+                }
+                // Удаление тоже проходит через debounce: файл, пересозданный редактором, не теряет свой XML
+                pending.put(file, System.nanoTime());
+            }
+            if (!key.reset()) {
+                log.error("Каталог {} больше недоступен для наблюдения", inputDir);
+                return;
+            }
+        }
+    }
+
+    private void scanAll() {
+        long now = System.nanoTime() - debounceNanos;
+        try (Stream<Path> files = Files.list(inputDir)) {
+            files.filter(file -> matcher.matches(file.getFileName()))
+                    .filter(Files::isRegularFile)
+                    .forEach(file -> pending.put(file, now));
+        } catch (IOException e) {
+            log.error("Ошибка при сканировании каталога {}: {}", inputDir, e.getMessage());
+        }
+        // Входы из манифеста, удалённые, пока сервис не работал или события были потеряны
+        for (String key : manifest.keys()) {
+            Path file = inputDir.resolve(key);
+            if (!Files.exists(file)) {
+                pending.put(file, now);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            log.error("Ошибка при обработке изменённых файлов: {}", e.getMessage());
+            log.debug("Подробности ошибки обработки изменённых файлов: ", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Непредвиденная ошибка при обработке изменённых файлов: {}", e.getMessage());
+            log.debug("Подробности непредвиденной ошибки: ", e);
+        }
+    }
+
+    private void flush() throws IOException, InterruptedException {
+        long now = System.nanoTime();
+        List<Path> changed = new ArrayList<>();
+        boolean removed = false;
+        for (Map.Entry<Path, Long> entry : pending.entrySet()) {
+            Path file = entry.getKey();
+            if (now - entry.getValue() < debounceNanos || !pending.remove(file, entry.getValue())) {
+                continue;
+            }
+            if (!Files.isRegularFile(file)) {
+                removed |= removeOrphan(file);
+            } else if (!manifest.isUnchanged(manifestKey(file), file) || !Files.exists(xmlFile(file))) {
+                // Совпадение отпечатка входа не спасает XML, удалённый вручную
+                changed.add(file);
+            }
+        }
+        if (changed.isEmpty()) {
+            if (removed) {
+                manifest.save();
+            }
+            return;
+        }
+
+        // В манифест попадают только успешно сконвертированные файлы, иначе ошибочный файл больше не переобработается
+        Queue<FileConversion> converted = new ConcurrentLinkedQueue<>();
+        converter.convertFiles(changed, inputDir, outputDir, conversion -> {
+            if (conversion.isConverted()) {
+                converted.add(conversion);
+            }
+        });
+        for (FileConversion conversion : converted) {
+            manifest.record(manifestKey(conversion.jsonFile()), conversion.fingerprint());
+        }
+        manifest.save();
+    }
+
+    // XML удаляется только для входов из манифеста, то есть сконвертированных этим сервисом
+    private boolean removeOrphan(Path file) throws IOException {
+        if (!manifest.remove(manifestKey(file))) {
+            return false;
+        }
+        if (deleteOrphans && Files.deleteIfExists(xmlFile(file))) {
+            log.info("Входной файл {} удалён, удалён и его XML {}", file, xmlFile(file));
+        }
+        return true;
+    }
+
+    private Path xmlFile(Path jsonFile) {
+        return outputDir.resolve(CityBatchConverter.xmlName(inputDir.relativize(jsonFile)));
+    }
+
+    private String manifestKey(Path file) {
+        return inputDir.relativize(file).toString();
+    }
+}
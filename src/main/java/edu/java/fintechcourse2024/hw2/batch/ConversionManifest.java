@@ -0,0 +1,131 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ConversionManifest {
+
+    private final Path file;
+    private final Map<String, Fingerprint> entries = new ConcurrentHashMap<>();
+
+    private ConversionManifest(Path file) {
+        this.file = file;
+    }
+
+    public static ConversionManifest load(Path file) throws IOException {
+        ConversionManifest manifest = new ConversionManifest(file);
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            properties.forEach((key, value) -> manifest.entries.put((String) key, Fingerprint.parse((String) value)));
+        }
+        return manifest;
+    }
+
+    public boolean isUnchanged(String key, Path jsonFile) throws IOException {
+        Fingerprint known = entries.get(key);
+        if (known == null) {
+            return false;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(jsonFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (attributes.size() != known.size()) {
+            return false;
+        }
+        if (attributes.lastModifiedTime().toMillis() == known.modifiedMillis()) {
+            return true;
+        }
+        String hash = hash(jsonFile);
+        if (hash.equals(known.sha256())) {
+            entries.put(key, new Fingerprint(known.size(), attributes.lastModifiedTime().toMillis(), hash));
+            return true;
+        }
+        return false;
+    }
+
+    void record(String key, Fingerprint fingerprint) {
+        entries.put(key, fingerprint);
+    }
+
+    public boolean remove(String key) {
+        return entries.remove(key) != null;
+    }
+
+    public Set<String> keys() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    public synchronized void save() throws IOException {
+        Properties properties = new Properties();
+        entries.forEach((key, fingerprint) -> properties.setProperty(key, fingerprint.toString()));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String hash(Path jsonFile) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(jsonFile), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static String hash(byte[] json) {
+        return HexFormat.of().formatHex(sha256().digest(json));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Fingerprint(long size, long modifiedMillis, String sha256) {
+
+        static Fingerprint of(byte[] json, long modifiedMillis) {
+            return new Fingerprint(json.length, modifiedMillis, hash(json));
+        }
+
+        static Fingerprint parse(String value) {
+            String[] parts = value.split(",", 3);
+            if (parts.length != 3) {
+                throw new UncheckedIOException(new IOException("Повреждена запись манифеста: " + value));
+            }
+            return new Fingerprint(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]);
+        }
+
+        @Override
+        public String toString() {
+            return size + "," + modifiedMillis + "," + sha256;
+        }
+    }
+}
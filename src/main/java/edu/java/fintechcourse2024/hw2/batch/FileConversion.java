@@ -0,0 +1,10 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import java.nio.file.Path;
+
+record FileConversion(Path jsonFile, Outcome outcome, ConversionManifest.Fingerprint fingerprint) {
+
+    boolean isConverted() {
+        return outcome == Outcome.CONVERTED;
+    }
+}
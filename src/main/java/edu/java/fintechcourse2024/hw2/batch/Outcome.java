@@ -0,0 +1,5 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+enum Outcome {
+    CONVERTED, PARSE_ERROR, MAPPING_ERROR, IO_ERROR, UNEXPECTED_ERROR
+}
@@ -0,0 +1,5 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+public record StageMetrics(String stage, int workers, long processed, long errors, int queueDepth, int maxQueueDepth,
+                           int queueCapacity) {
+}
@@ -0,0 +1,29 @@
+package edu.java.fintechcourse2024.hw2.binary;
+
+import java.nio.ByteOrder;
+
+final class CityBinaryFormat {
+
+    static final int MAGIC = 0x43495459;
+    // Версия 2: смещения словаря хранятся в long, данные словаря могут превышать 2 ГБ
+    static final int VERSION = 2;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int NO_SLUG = -1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int COUNT_OFFSET = 8;
+    static final int DICTIONARY_SIZE_OFFSET = 16;
+    static final int LAT_OFFSET = 24;
+    static final int LON_OFFSET = 32;
+    static final int SLUG_IDS_OFFSET = 40;
+    static final int DICTIONARY_OFFSET = 48;
+    static final int HEADER_SIZE = 56;
+
+    private CityBinaryFormat() {
+    }
+
+    static long align8(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,149 @@
+package edu.java.fintechcourse2024.hw2.binary;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static edu.java.fintechcourse2024.hw2.binary.CityBinaryFormat.*;
+
+public class CityBinaryReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int count;
+    private final DoubleBuffer lat;
+    private final DoubleBuffer lon;
+    private final IntBuffer slugIds;
+    private final String[] dictionary;
+
+    private CityBinaryReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ORDER);
+        if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Файл не является бинарным хранилищем городов версии " + VERSION);
+        }
+        long records = header.getLong(COUNT_OFFSET);
+        if (records > Integer.MAX_VALUE / Double.BYTES) {
+            throw new IOException("Слишком много записей в одном файле: " + records);
+        }
+        this.count = (int) records;
+        this.lat = map(header.getLong(LAT_OFFSET), (long) count * Double.BYTES).asDoubleBuffer();
+        this.lon = map(header.getLong(LON_OFFSET), (long) count * Double.BYTES).asDoubleBuffer();
+        this.slugIds = map(header.getLong(SLUG_IDS_OFFSET), (long) count * Integer.BYTES).asIntBuffer();
+        this.dictionary = readDictionary(header.getLong(DICTIONARY_OFFSET), header.getInt(DICTIONARY_SIZE_OFFSET));
+    }
+
+    public static CityBinaryReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new CityBinaryReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public double lat(int index) {
+        return lat.get(index);
+    }
+
+    public double lon(int index) {
+        return lon.get(index);
+    }
+
+    public int slugId(int index) {
+        return slugIds.get(index);
+    }
+
+    public String slug(int index) {
+        int id = slugIds.get(index);
+        return id == NO_SLUG ? null : dictionary[id];
+    }
+
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    public String dictionarySlug(int slugId) {
+        return dictionary[slugId];
+    }
+
+    public City get(int index) {
+        double cityLat = lat.get(index);
+        double cityLon = lon.get(index);
+        Coordinates coords = Double.isNaN(cityLat) && Double.isNaN(cityLon) ? null : new Coordinates(cityLat, cityLon);
+        return new City(slug(index), coords);
+    }
+
+    public DoubleBuffer latColumn() {
+        return lat.asReadOnlyBuffer();
+    }
+
+    public DoubleBuffer lonColumn() {
+        return lon.asReadOnlyBuffer();
+    }
+
+    public IntBuffer slugIdColumn() {
+        return slugIds.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer map(long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return buffer.order(ORDER);
+    }
+
+    // Словарь читается последовательно: смещения в long, данные не отображаются целиком и могут превышать 2 ГБ
+    private String[] readDictionary(long offset, int size) throws IOException {
+        ByteBuffer offsets = ByteBuffer.allocate(64 * 1024).order(ORDER);
+        long[] bounds = new long[size + 1];
+        long position = offset;
+        for (int read = 0; read <= size; ) {
+            offsets.clear().limit((int) Math.min(offsets.capacity(), (long) (size + 1 - read) * Long.BYTES));
+            position += readFully(offsets, position);
+            offsets.flip();
+            while (offsets.hasRemaining()) {
+                bounds[read++] = offsets.getLong();
+            }
+        }
+        String[] slugs = new String[size];
+        for (int i = 0; i < size; i++) {
+            long length = bounds[i + 1] - bounds[i];
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Повреждён словарь slug: некорректная длина записи " + i);
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) length);
+            position += readFully(bytes, position);
+            slugs[i] = new String(bytes.array(), 0, (int) length, StandardCharsets.UTF_8);
+        }
+        return slugs;
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                throw new IOException("Неожиданный конец бинарного файла городов");
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,260 @@
+package edu.java.fintechcourse2024.hw2.binary;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static edu.java.fintechcourse2024.hw2.binary.CityBinaryFormat.*;
+
+// Колонки не копятся в памяти: lat пишется сразу в итоговый файл, а lon, slug-id и байты словаря -
+// во временные файлы рядом с ним. Буферы каждой колонки сбрасываются по мере заполнения,
+// при close() временные файлы дописываются в итоговый и удаляются.
+public class CityBinaryWriter implements AutoCloseable {
+
+    private static final int COLUMN_BUFFER_SIZE = 256 * 1024;
+
+    private final Map<String, Integer> slugIds = new HashMap<>();
+    private long[] dictionaryOffsets = new long[1024];
+    private int dictionarySize;
+    private long count;
+    private boolean closed;
+
+    private final FileChannel channel;
+    private final Path lonSpill;
+    private final Path slugIdSpill;
+    private final Path dictionarySpill;
+    private final ColumnOutput lat;
+    private final ColumnOutput lon;
+    private final ColumnOutput slugs;
+    private final ColumnOutput dictionary;
+
+    public CityBinaryWriter(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName().toString() + ".";
+        // Если любой шаг не удался, созданные к этому моменту временные файлы удаляются
+        Path[] spills = new Path[3];
+        FileChannel[] channels = new FileChannel[4];
+        try {
+            spills[0] = Files.createTempFile(directory, prefix, ".lon");
+            spills[1] = Files.createTempFile(directory, prefix, ".slug");
+            spills[2] = Files.createTempFile(directory, prefix, ".dict");
+            channels[0] = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            for (int i = 0; i < spills.length; i++) {
+                channels[i + 1] = FileChannel.open(spills[i], StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (FileChannel opened : channels) {
+                if (opened != null) {
+                    try {
+                        opened.close();
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+            }
+            for (Path spill : spills) {
+                if (spill != null) {
+                    try {
+                        Files.deleteIfExists(spill);
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+            }
+            throw e;
+        }
+        this.lonSpill = spills[0];
+        this.slugIdSpill = spills[1];
+        this.dictionarySpill = spills[2];
+        this.channel = channels[0];
+        this.lat = new ColumnOutput(channels[0]);
+        this.lon = new ColumnOutput(channels[1]);
+        this.slugs = new ColumnOutput(channels[2]);
+        this.dictionary = new ColumnOutput(channels[3]);
+    }
+
+    public static void write(Path file, Iterable<City> cities) throws IOException {
+        try (CityBinaryWriter writer = new CityBinaryWriter(file)) {
+            for (City city : cities) {
+                writer.append(city);
+            }
+        }
+    }
+
+    // Для передачи в качестве Consumer<City>, например CityParser.readJsonArray(file, writer::add)
+    public void add(City city) {
+        try {
+            append(city);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void append(City city) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer уже закрыт");
+        }
+        if (count == 0) {
+            lat.skipTo(align8(HEADER_SIZE));
+        }
+        var coords = city.coords();
+        lat.putDouble(coords != null ? coords.lat() : Double.NaN);
+        lon.putDouble(coords != null ? coords.lon() : Double.NaN);
+        slugs.putInt(slugId(city.slug()));
+        count++;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    private int slugId(String slug) throws IOException {
+        if (slug == null) {
+            return NO_SLUG;
+        }
+        Integer id = slugIds.get(slug);
+        if (id != null) {
+            return id;
+        }
+        if (dictionarySize + 1 == dictionaryOffsets.length) {
+            dictionaryOffsets = Arrays.copyOf(dictionaryOffsets, dictionaryOffsets.length * 2);
+        }
+        dictionary.put(slug.getBytes(StandardCharsets.UTF_8));
+        dictionaryOffsets[++dictionarySize] = dictionary.position();
+        slugIds.put(slug, dictionarySize - 1);
+        return dictionarySize - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (channel; FileChannel lonChannel = lon.channel; FileChannel slugChannel = slugs.channel;
+             FileChannel dictionaryChannel = dictionary.channel) {
+            lon.flush();
+            slugs.flush();
+            dictionary.flush();
+
+            long latOffset = align8(HEADER_SIZE);
+            lat.skipTo(latOffset);
+            long lonOffset = lat.position();
+            lat.transferFrom(lonChannel);
+            long slugIdsOffset = lat.position();
+            lat.transferFrom(slugChannel);
+            long dictionaryOffset = align8(lat.position());
+            lat.skipTo(dictionaryOffset);
+            for (int i = 0; i <= dictionarySize; i++) {
+                lat.putLong(dictionaryOffsets[i]);
+            }
+            lat.transferFrom(dictionaryChannel);
+            lat.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            header.putInt(MAGIC_OFFSET, MAGIC)
+                    .putInt(VERSION_OFFSET, VERSION)
+                    .putLong(COUNT_OFFSET, count)
+                    .putInt(DICTIONARY_SIZE_OFFSET, dictionarySize)
+                    .putLong(LAT_OFFSET, latOffset)
+                    .putLong(LON_OFFSET, lonOffset)
+                    .putLong(SLUG_IDS_OFFSET, slugIdsOffset)
+                    .putLong(DICTIONARY_OFFSET, dictionaryOffset);
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        } finally {
+            Files.deleteIfExists(lonSpill);
+            Files.deleteIfExists(slugIdSpill);
+            Files.deleteIfExists(dictionarySpill);
+        }
+    }
+
+    // Последовательная запись колонки через собственный буфер; позиция считается в long
+    private static final class ColumnOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(COLUMN_BUFFER_SIZE).order(ORDER);
+        private long flushed;
+
+        ColumnOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES).putDouble(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES).putLong(value);
+        }
+
+        // Длинные массивы пишутся частями, буфер колонки никогда не подменяется
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void skipTo(long target) throws IOException {
+            while (position() < target) {
+                ensure(1).put((byte) 0);
+            }
+        }
+
+        void transferFrom(FileChannel source) throws IOException {
+            flush();
+            long size = source.size();
+            long done = 0;
+            while (done < size) {
+                // 0 означает, что источник кончился раньше своего размера: повтор зациклился бы
+                long transferred = channel.transferFrom(source, flushed + done, size - done);
+                if (transferred <= 0) {
+                    throw new IOException("Временный файл колонки обрезан: перенесено " + done + " из " + size + " байт");
+                }
+                done += transferred;
+            }
+            flushed += size;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer, flushed);
+            }
+            buffer.clear();
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package edu.java.fintechcourse2024.hw2.cache;
+
+public record CacheStats(long hits, long misses, long loadFailures, long evictions, long size) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,263 @@
+package edu.java.fintechcourse2024.hw2.cache;
+
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CityCache {
+
+    private final CityReader reader;
+    private final long maximumSize;
+    private final long ttlNanos;
+    private final long revalidateNanos;
+
+    private final ConcurrentHashMap<Path, Entry> byFile = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> bySlug = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    // Кольцо «второго шанса»; изменяется только под собственным монитором
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    // Растёт при каждой инвалидации (под монитором clock): загрузка, начатая до неё, не попадает в кэш
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CityCache(CityReader reader, long maximumSize, Duration ttl, Duration revalidateInterval) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maximumSize);
+        }
+        this.reader = reader;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.revalidateNanos = revalidateInterval.toNanos();
+    }
+
+    public City get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long now = System.nanoTime();
+        Entry entry = byFile.get(key);
+        if (entry != null && isFresh(entry, now)) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.city;
+        }
+        misses.increment();
+        return loadOnce(key, entry, now).city;
+    }
+
+    public City getBySlug(String slug) {
+        Entry entry = bySlug.get(slug);
+        boolean fresh = false;
+        if (entry != null && byFile.get(entry.file) != entry) {
+            // Запись уже инвалидирована, вытеснена или заменена: убираем висящую ссылку по слагу
+            bySlug.remove(slug, entry);
+        } else if (entry != null) {
+            try {
+                fresh = isFresh(entry, System.nanoTime());
+            } catch (IOException e) {
+                fresh = false;
+            }
+            if (!fresh) {
+                // Файл изменился: по слагу больше нельзя отдавать старый город
+                remove(entry);
+            }
+        }
+        if (!fresh) {
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return entry.city;
+    }
+
+    public void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (clock) {
+            generation++;
+            // Новые промахи не должны дожидаться загрузки, начатой до инвалидации
+            loading.remove(key);
+            Entry entry = byFile.remove(key);
+            if (entry != null) {
+                unlinkSlug(entry);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (clock) {
+            generation++;
+            loading.clear();
+            byFile.clear();
+            bySlug.clear();
+            clock.clear();
+        }
+    }
+
+    public long size() {
+        return byFile.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadFailures.sum(), evictions.sum(), byFile.size());
+    }
+
+    private boolean isFresh(Entry entry, long now) throws IOException {
+        if (now - entry.loadedAt > ttlNanos) {
+            return false;
+        }
+        if (now - entry.validatedAt <= revalidateNanos) {
+            return true;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(entry.file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().toMillis() != entry.modifiedMillis || attributes.size() != entry.fileSize) {
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            remove(entry);
+            throw e;
+        }
+        entry.validatedAt = now;
+        return true;
+    }
+
+    // Одновременные промахи по одному файлу ждут одну загрузку, а не парсят файл каждый сам
+    private Entry loadOnce(Path key, Entry stale, long now) throws IOException {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Entry loaded = load(key, stale, now);
+            mine.complete(loaded);
+            return loaded;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание загрузки города прервано", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private Entry load(Path key, Entry stale, long now) throws IOException {
+        long startedAt = generation;
+        Entry loaded;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            City city = reader.read(key.toFile());
+            loaded = new Entry(key, city, attributes.lastModifiedTime().toMillis(), attributes.size(), now);
+        } catch (IOException | RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        }
+
+        synchronized (clock) {
+            if (generation != startedAt || byFile.get(key) != stale) {
+                return loaded;
+            }
+            if (stale != null) {
+                unlinkSlug(stale);
+            }
+            byFile.put(key, loaded);
+            if (loaded.slug() != null) {
+                bySlug.put(loaded.slug(), loaded);
+            }
+            clock.offer(loaded);
+            evictIfNeeded();
+        }
+        return loaded;
+    }
+
+    private void remove(Entry entry) {
+        if (byFile.remove(entry.file, entry)) {
+            unlinkSlug(entry);
+        }
+    }
+
+    // Вызывается под монитором clock. Каждый просмотренный элемент либо удаляется из кольца,
+    // либо теряет бит обращения, поэтому за два оборота цикл гарантированно завершается
+    private void evictIfNeeded() {
+        int budget = 2 * clock.size();
+        while (budget-- > 0 && (byFile.size() > maximumSize || clock.size() > 2 * maximumSize)) {
+            Entry candidate = clock.poll();
+            if (candidate == null) {
+                return;
+            }
+            if (byFile.get(candidate.file) != candidate) {
+                continue;
+            }
+            if (candidate.referenced || byFile.size() <= maximumSize) {
+                candidate.referenced = false;
+                clock.offer(candidate);
+            } else if (byFile.remove(candidate.file, candidate)) {
+                unlinkSlug(candidate);
+                evictions.increment();
+            }
+        }
+    }
+
+    private void unlinkSlug(Entry entry) {
+        if (entry.slug() != null) {
+            bySlug.remove(entry.slug(), entry);
+        }
+    }
+
+    private static final class Entry {
+        final Path file;
+        final City city;
+        final long modifiedMillis;
+        final long fileSize;
+        final long loadedAt;
+        volatile long validatedAt;
+        volatile boolean referenced;
+
+        Entry(Path file, City city, long modifiedMillis, long fileSize, long loadedAt) {
+            this.file = file;
+            this.city = city;
+            this.modifiedMillis = modifiedMillis;
+            this.fileSize = fileSize;
+            this.loadedAt = loadedAt;
+            this.validatedAt = loadedAt;
+        }
+
+        String slug() {
+            return city != null ? city.slug() : null;
+        }
+    }
+}
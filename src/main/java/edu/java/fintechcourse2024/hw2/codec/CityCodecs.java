@@ -0,0 +1,149 @@
+package edu.java.fintechcourse2024.hw2.codec;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public final class CityCodecs {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ZSTD_LEVEL = 3;
+    // Меньше одного блока параллельное сжатие ничего не даёт, а буфер блока всё равно выделяется
+    private static final int PARALLEL_THRESHOLD = ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE;
+
+    private CityCodecs() {
+    }
+
+    public static Codec detect(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".gz")) {
+            return Codec.GZIP;
+        }
+        if (name.endsWith(".zst")) {
+            return Codec.ZSTD;
+        }
+        return Codec.NONE;
+    }
+
+    // Имя файла без расширения сжатия: city.json.gz -> city.json
+    public static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - detect(file).extension().length());
+    }
+
+    public static InputStream openInput(Path file) throws IOException {
+        return openInput(Files.newInputStream(file));
+    }
+
+    public static byte[] readAllBytes(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    public static byte[] decode(byte[] data) throws IOException {
+        InputStream raw = new ByteArrayInputStream(data);
+        if (sniff(raw) == Codec.NONE) {
+            return data;
+        }
+        try (InputStream in = openInput(raw)) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Записывает готовые данные целиком; небольшие файлы сжимаются в одном потоке
+    public static void write(Path file, byte[] data) throws IOException {
+        if (detect(file) == Codec.NONE) {
+            Files.write(file, data);
+            return;
+        }
+        try (OutputStream out = openOutput(file, ForkJoinPool.getCommonPoolParallelism(), data.length)) {
+            out.write(data);
+        }
+    }
+
+    private static InputStream openInput(InputStream source) throws IOException {
+        InputStream in = new BufferedInputStream(source, BUFFER_SIZE);
+        try {
+            return switch (sniff(in)) {
+                case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+                case ZSTD -> new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+                case NONE -> in;
+            };
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public static OutputStream openOutput(Path file) throws IOException {
+        return openOutput(file, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    public static OutputStream openOutput(Path file, int parallelism) throws IOException {
+        return openOutput(file, parallelism, -1);
+    }
+
+    // sizeHint < 0 - размер заранее неизвестен
+    private static OutputStream openOutput(Path file, int parallelism, long sizeHint) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        boolean small = sizeHint >= 0 && sizeHint < PARALLEL_THRESHOLD;
+        try {
+            return switch (detect(file)) {
+                case GZIP -> small
+                        ? new GZIPOutputStream(out, BUFFER_SIZE)
+                        : new ParallelGzipOutputStream(out, ForkJoinPool.commonPool(), parallelism);
+                case ZSTD -> new BufferedOutputStream(new ZstdOutputStream(out, ZSTD_LEVEL)
+                        .setWorkers(small ? 0 : parallelism), BUFFER_SIZE);
+                case NONE -> out;
+            };
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // Кодек по содержимому файла, а не по расширению - так же, как его выбирает openInput
+    public static Codec sniff(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 4)) {
+            return sniff(in);
+        }
+    }
+
+    private static Codec sniff(InputStream in) throws IOException {
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+        if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Codec.GZIP;
+        }
+        if (magic.length == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return Codec.ZSTD;
+        }
+        return Codec.NONE;
+    }
+
+    public enum Codec {
+        NONE(""), GZIP(".gz"), ZSTD(".zst");
+
+        private final String extension;
+
+        Codec(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+}
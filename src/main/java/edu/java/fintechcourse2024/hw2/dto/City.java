@@ -1,4 +1,7 @@
 package edu.java.fintechcourse2024.hw2.dto;
 
-public record City(String slug, Coordinates coords) {
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import edu.java.fintechcourse2024.hw2.intern.CanonicalSlugDeserializer;
+
+public record City(@JsonDeserialize(using = CanonicalSlugDeserializer.class) String slug, Coordinates coords) {
 }
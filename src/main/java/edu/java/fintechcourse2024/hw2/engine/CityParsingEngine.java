@@ -0,0 +1,18 @@
+package edu.java.fintechcourse2024.hw2.engine;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public interface CityParsingEngine {
+
+    String name();
+
+    City parse(byte[] json) throws IOException;
+
+    default City parse(Path jsonFile) throws IOException {
+        return parse(Files.readAllBytes(jsonFile));
+    }
+}
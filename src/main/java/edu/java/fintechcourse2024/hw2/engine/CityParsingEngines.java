@@ -0,0 +1,27 @@
+package edu.java.fintechcourse2024.hw2.engine;
+
+import edu.java.fintechcourse2024.hw2.CityReader;
+
+public final class CityParsingEngines {
+
+    public static final String PROPERTY = "city.parser.engine";
+
+    private static final CityParsingEngine JACKSON = new JacksonCityEngine(CityReader.shared());
+    private static final CityParsingEngine FAST = new FastCityEngine();
+    private static final CityParsingEngine DEFAULT = byName(System.getProperty(PROPERTY, JacksonCityEngine.NAME));
+
+    private CityParsingEngines() {
+    }
+
+    public static CityParsingEngine defaultEngine() {
+        return DEFAULT;
+    }
+
+    public static CityParsingEngine byName(String name) {
+        return switch (name) {
+            case JacksonCityEngine.NAME -> JACKSON;
+            case FastCityEngine.NAME -> FAST;
+            default -> throw new IllegalArgumentException("Неизвестный движок парсинга: " + name);
+        };
+    }
+}
@@ -0,0 +1,459 @@
+package edu.java.fintechcourse2024.hw2.engine;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.io.ContentReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import edu.java.fintechcourse2024.hw2.intern.SlugInterner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class FastCityEngine implements CityParsingEngine {
+
+    public static final String NAME = "fast";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public City parse(byte[] json) throws IOException {
+        Cursor cursor = new Cursor(json);
+        cursor.skipWhitespace();
+        City city = cursor.peek() == 'n' ? cursor.nullLiteral() : cursor.city();
+        cursor.skipWhitespace();
+        if (cursor.pos < json.length) {
+            throw cursor.syntax("Лишние данные после окончания JSON");
+        }
+        return city;
+    }
+
+    private static final class Cursor {
+
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        private static final long MAX_EXACT_MANTISSA = 1L << 53;
+        // Столько значащих цифр гарантированно помещается в long; точный путь дополнительно
+        // требует мантиссу не больше 2^53
+        private static final int MAX_DIGITS = 18;
+        private static final int SLUG = 1;
+        private static final int COORDS = 2;
+        private static final int LAT = 3;
+        private static final int LON = 4;
+
+        private final byte[] b;
+        private int pos;
+
+        Cursor(byte[] json) {
+            this.b = json;
+            if (json.length >= 3 && (json[0] & 0xFF) == 0xEF && (json[1] & 0xFF) == 0xBB && (json[2] & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+        }
+
+        City city() throws IOException {
+            expect('{');
+            String slug = null;
+            Coordinates coords = null;
+            boolean slugSeen = false;
+            boolean coordsSeen = false;
+            skipWhitespace();
+            if (peek() != '}') {
+                while (true) {
+                    int keyStart = pos;
+                    int key = key();
+                    // Jackson создаёт record, как только получены все параметры конструктора,
+                    // и повторный ключ после этого уже некуда записать.
+                    if (slugSeen && coordsSeen) {
+                        pos = keyStart;
+                        throw mapping("Повторный ключ после заполнения всех полей города");
+                    }
+                    skipWhitespace();
+                    if (key == SLUG) {
+                        slug = slug();
+                        slugSeen = true;
+                    } else if (key == COORDS) {
+                        coords = peek() == 'n' ? nullLiteral() : coordinates();
+                        coordsSeen = true;
+                    } else {
+                        pos = keyStart;
+                        throw mapping("Неизвестный ключ города " + keyName(key));
+                    }
+                    if (!nextMember()) {
+                        break;
+                    }
+                }
+            }
+            expect('}');
+            return new City(slug, coords);
+        }
+
+        private Coordinates coordinates() throws IOException {
+            if (peek() != '{') {
+                throw mapping("Значение coords должно быть объектом");
+            }
+            pos++;
+            double lat = 0;
+            double lon = 0;
+            boolean latSeen = false;
+            boolean lonSeen = false;
+            skipWhitespace();
+            if (peek() != '}') {
+                while (true) {
+                    int keyStart = pos;
+                    int key = key();
+                    if (latSeen && lonSeen) {
+                        pos = keyStart;
+                        throw mapping("Повторный ключ после заполнения всех координат");
+                    }
+                    skipWhitespace();
+                    if (key == LAT) {
+                        lat = coordinate();
+                        latSeen = true;
+                    } else if (key == LON) {
+                        lon = coordinate();
+                        lonSeen = true;
+                    } else {
+                        pos = keyStart;
+                        throw mapping("Неизвестный ключ координат " + keyName(key));
+                    }
+                    if (!nextMember()) {
+                        break;
+                    }
+                }
+            }
+            expect('}');
+            return new Coordinates(lat, lon);
+        }
+
+        // Как StringDeserializer: числа и булевы значения превращаются в свой текст.
+        private String slug() throws IOException {
+            int c = peek();
+            if (c == 'n') {
+                return nullLiteral();
+            }
+            if (c == '"') {
+                return string(true);
+            }
+            if (c == 't' || c == 'f') {
+                if (matches("true")) {
+                    return "true";
+                }
+                if (matches("false")) {
+                    return "false";
+                }
+                throw syntax("Ожидалось true или false");
+            }
+            if (c == '-' || isDigit(c)) {
+                int start = pos;
+                number();
+                return SlugInterner.shared().intern(b, start, pos - start);
+            }
+            if (c == '{' || c == '[') {
+                throw mapping("Значение slug должно быть строкой");
+            }
+            throw syntax("Ожидалось значение slug");
+        }
+
+        // Как десериализатор double по умолчанию: null и пустая строка дают 0.0,
+        // строка с числом разбирается через Double.parseDouble.
+        private double coordinate() throws IOException {
+            int c = peek();
+            if (c == 'n') {
+                nullLiteral();
+                return 0;
+            }
+            if (c != '"') {
+                return number();
+            }
+            int start = pos;
+            String text = string(false);
+            if (text.isBlank()) {
+                return 0;
+            }
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw mapping("Координата не является числом: " + text);
+            }
+        }
+
+        private int key() throws IOException {
+            int start = pos;
+            expect('"');
+            int result;
+            if (matches("slug\"")) {
+                result = SLUG;
+            } else if (matches("coords\"")) {
+                result = COORDS;
+            } else if (matches("lat\"")) {
+                result = LAT;
+            } else if (matches("lon\"")) {
+                result = LON;
+            } else {
+                // Ключ с escape-последовательностями ("\u0073lug") Jackson сравнивает уже декодированным
+                pos = start;
+                String name = string(false);
+                result = switch (name) {
+                    case "slug" -> SLUG;
+                    case "coords" -> COORDS;
+                    case "lat" -> LAT;
+                    case "lon" -> LON;
+                    default -> {
+                        pos = start;
+                        throw mapping("Неизвестный ключ " + name);
+                    }
+                };
+            }
+            skipWhitespace();
+            expect(':');
+            return result;
+        }
+
+        private static String keyName(int key) {
+            return switch (key) {
+                case SLUG -> "slug";
+                case COORDS -> "coords";
+                case LAT -> "lat";
+                default -> "lon";
+            };
+        }
+
+        private boolean matches(String key) {
+            int length = key.length();
+            if (pos + length > b.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (b[pos + i] != key.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += length;
+            return true;
+        }
+
+        private boolean nextMember() throws IOException {
+            skipWhitespace();
+            if (peek() != ',') {
+                return false;
+            }
+            pos++;
+            skipWhitespace();
+            return true;
+        }
+
+        private String string(boolean canonical) throws IOException {
+            if (peek() != '"') {
+                throw mapping("Ожидалась строка");
+            }
+            int start = ++pos;
+            while (pos < b.length) {
+                int c = b[pos] & 0xFF;
+                if (c == '"') {
+                    int length = pos++ - start;
+                    return canonical
+                            ? SlugInterner.shared().intern(b, start, length)
+                            : new String(b, start, length, StandardCharsets.UTF_8);
+                }
+                if (c == '\\') {
+                    return escapedString(start, canonical);
+                }
+                if (c < 0x20) {
+                    throw syntax("Управляющий символ внутри строки");
+                }
+                pos++;
+            }
+            throw syntax("Незакрытая строка");
+        }
+
+        private String escapedString(int start, boolean canonical) throws IOException {
+            StringBuilder out = new StringBuilder(pos - start + 16);
+            out.append(new String(b, start, pos - start, StandardCharsets.UTF_8));
+            int chunk = pos;
+            while (pos < b.length) {
+                int c = b[pos] & 0xFF;
+                if (c == '"') {
+                    out.append(new String(b, chunk, pos++ - chunk, StandardCharsets.UTF_8));
+                    return canonical ? SlugInterner.shared().intern(out.toString()) : out.toString();
+                }
+                if (c < 0x20) {
+                    throw syntax("Управляющий символ внутри строки");
+                }
+                if (c != '\\') {
+                    pos++;
+                    continue;
+                }
+                out.append(new String(b, chunk, pos - chunk, StandardCharsets.UTF_8));
+                if (++pos >= b.length) {
+                    break;
+                }
+                switch (b[pos++]) {
+                    case '"' -> out.append('"');
+                    case '\\' -> out.append('\\');
+                    case '/' -> out.append('/');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> out.append(unicodeEscape());
+                    default -> {
+                        pos--;
+                        throw syntax("Некорректная escape-последовательность");
+                    }
+                }
+                chunk = pos;
+            }
+            throw syntax("Незакрытая строка");
+        }
+
+        private char unicodeEscape() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = pos < b.length ? Character.digit(b[pos], 16) : -1;
+                if (digit < 0) {
+                    throw syntax("Некорректная escape-последовательность \\u");
+                }
+                value = value * 16 + digit;
+                pos++;
+            }
+            return (char) value;
+        }
+
+        private double number() throws IOException {
+            int start = pos;
+            boolean negative = peek() == '-';
+            if (negative) {
+                pos++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean truncated = false;
+            if (peek() == '0') {
+                pos++;
+            } else if (isDigit(peek())) {
+                while (isDigit(peek())) {
+                    if (digits < MAX_DIGITS) {
+                        mantissa = mantissa * 10 + (b[pos] - '0');
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                    } else {
+                        truncated |= b[pos] != '0';
+                        exponent++;
+                    }
+                    pos++;
+                }
+            } else {
+                if (peek() == '"' || peek() == '{' || peek() == '[' || peek() == 't' || peek() == 'f' || peek() == 'n') {
+                    throw mapping("Координата должна быть числом");
+                }
+                throw syntax("Ожидалось число");
+            }
+            if (peek() == '.') {
+                pos++;
+                if (!isDigit(peek())) {
+                    throw syntax("Ожидалась цифра после десятичной точки");
+                }
+                while (isDigit(peek())) {
+                    if (digits < MAX_DIGITS) {
+                        mantissa = mantissa * 10 + (b[pos] - '0');
+                        if (mantissa != 0) {
+                            digits++;
+                        }
+                        exponent--;
+                    } else {
+                        truncated |= b[pos] != '0';
+                    }
+                    pos++;
+                }
+            }
+            if (peek() == 'e' || peek() == 'E') {
+                pos++;
+                boolean negativeExponent = peek() == '-';
+                if (peek() == '+' || peek() == '-') {
+                    pos++;
+                }
+                if (!isDigit(peek())) {
+                    throw syntax("Ожидалась цифра в экспоненте");
+                }
+                int explicit = 0;
+                while (isDigit(peek())) {
+                    if (explicit < 100_000) {
+                        explicit = explicit * 10 + (b[pos] - '0');
+                    }
+                    pos++;
+                }
+                exponent += negativeExponent ? -explicit : explicit;
+            }
+            if (!truncated && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+            return Double.parseDouble(new String(b, start, pos - start, StandardCharsets.US_ASCII));
+        }
+
+        private static boolean isDigit(int c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private <T> T nullLiteral() throws IOException {
+            if (!matches("null")) {
+                throw syntax("Ожидалось null");
+            }
+            return null;
+        }
+
+        void skipWhitespace() {
+            while (pos < b.length) {
+                byte c = b[pos];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (peek() != expected) {
+                throw syntax(pos >= b.length
+                        ? "Неожиданный конец файла, ожидалось '" + expected + "'"
+                        : "Ожидалось '" + expected + "'");
+            }
+            pos++;
+        }
+
+        int peek() {
+            return pos < b.length ? b[pos] & 0xFF : -1;
+        }
+
+        JsonParseException syntax(String message) {
+            return new JsonParseException(null, message, location());
+        }
+
+        private JsonMappingException mapping(String message) {
+            return new JsonMappingException(null, message, location());
+        }
+
+        private JsonLocation location() {
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < pos && i < b.length; i++) {
+                if (b[i] == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            return new JsonLocation(ContentReference.unknown(), pos, line, pos - lineStart + 1);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package edu.java.fintechcourse2024.hw2.engine;
+
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class JacksonCityEngine implements CityParsingEngine {
+
+    public static final String NAME = "jackson";
+
+    private final CityReader reader;
+
+    public JacksonCityEngine(CityReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public City parse(byte[] json) throws IOException {
+        return reader.read(json);
+    }
+
+    @Override
+    public City parse(Path jsonFile) throws IOException {
+        return reader.read(jsonFile.toFile());
+    }
+}
@@ -0,0 +1,408 @@
+package edu.java.fintechcourse2024.hw2.geo;
+
+import edu.java.fintechcourse2024.hw2.table.CityTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+public class CitySpatialIndex {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final double[][] xyz;
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] ids;
+    private final byte[] axes;
+    private final double[] minLat;
+    private final double[] maxLat;
+    private final double[] minLon;
+    private final double[] maxLon;
+    private final int size;
+
+    private CitySpatialIndex(int size) {
+        this.size = size;
+        this.xyz = new double[3][size];
+        this.lat = new double[size];
+        this.lon = new double[size];
+        this.ids = new int[size];
+        this.axes = new byte[size];
+        this.minLat = new double[size];
+        this.maxLat = new double[size];
+        this.minLon = new double[size];
+        this.maxLon = new double[size];
+    }
+
+    public static CitySpatialIndex build(CityTable table) {
+        return build(table, ForkJoinPool.commonPool());
+    }
+
+    public static CitySpatialIndex build(CityTable table, ForkJoinPool pool) {
+        int count = 0;
+        for (int i = 0; i < table.size(); i++) {
+            if (!Double.isNaN(table.lat(i)) && !Double.isNaN(table.lon(i))) {
+                count++;
+            }
+        }
+        CitySpatialIndex index = new CitySpatialIndex(count);
+        int n = 0;
+        for (int i = 0; i < table.size(); i++) {
+            double cityLat = table.lat(i);
+            double cityLon = table.lon(i);
+            if (!Double.isNaN(cityLat) && !Double.isNaN(cityLon)) {
+                index.set(n++, i, cityLat, cityLon);
+            }
+        }
+        if (count > 0) {
+            pool.invoke(index.new BuildTask(0, count));
+        }
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Neighbor> nearest(double queryLat, double queryLon, int k) {
+        if (k <= 0 || size == 0) {
+            return List.of();
+        }
+        double[] q = toUnitVector(queryLat, queryLon);
+        NeighborHeap heap = new NeighborHeap(Math.min(k, size));
+        searchNearest(0, size, q, heap);
+        return heap.toSortedList(ids);
+    }
+
+    public Neighbor nearest(double queryLat, double queryLon) {
+        List<Neighbor> neighbors = nearest(queryLat, queryLon, 1);
+        return neighbors.isEmpty() ? null : neighbors.get(0);
+    }
+
+    public void withinBox(double south, double west, double north, double east, IntConsumer consumer) {
+        if (size > 0) {
+            searchBox(0, size, south, west, north, east, consumer);
+        }
+    }
+
+    public int[] withinBox(double south, double west, double north, double east) {
+        IntList result = new IntList();
+        withinBox(south, west, north, east, result::add);
+        return result.toArray();
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double chordToMeters(double chordSquared) {
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+    }
+
+    private static double[] toUnitVector(double cityLat, double cityLon) {
+        double phi = Math.toRadians(cityLat);
+        double lambda = Math.toRadians(cityLon);
+        double cosPhi = Math.cos(phi);
+        return new double[]{cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    private void set(int position, int id, double cityLat, double cityLon) {
+        double[] v = toUnitVector(cityLat, cityLon);
+        xyz[0][position] = v[0];
+        xyz[1][position] = v[1];
+        xyz[2][position] = v[2];
+        lat[position] = cityLat;
+        lon[position] = cityLon;
+        ids[position] = id;
+    }
+
+    private void searchNearest(int lo, int hi, double[] q, NeighborHeap heap) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = q[0] - xyz[0][mid];
+        double dy = q[1] - xyz[1][mid];
+        double dz = q[2] - xyz[2][mid];
+        heap.offer(mid, dx * dx + dy * dy + dz * dz);
+
+        int axis = axes[mid];
+        double diff = q[axis] - xyz[axis][mid];
+        if (diff < 0) {
+            searchNearest(lo, mid, q, heap);
+            if (diff * diff < heap.worst()) {
+                searchNearest(mid + 1, hi, q, heap);
+            }
+        } else {
+            searchNearest(mid + 1, hi, q, heap);
+            if (diff * diff < heap.worst()) {
+                searchNearest(lo, mid, q, heap);
+            }
+        }
+    }
+
+    private void searchBox(int lo, int hi, double south, double west, double north, double east,
+                           IntConsumer consumer) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxLat[mid] < south || minLat[mid] > north || !lonOverlaps(minLon[mid], maxLon[mid], west, east)) {
+            return;
+        }
+        if (lat[mid] >= south && lat[mid] <= north && lonWithin(lon[mid], west, east)) {
+            consumer.accept(ids[mid]);
+        }
+        searchBox(lo, mid, south, west, north, east, consumer);
+        searchBox(mid + 1, hi, south, west, north, east, consumer);
+    }
+
+    private static boolean lonWithin(double value, double west, double east) {
+        return west <= east ? value >= west && value <= east : value >= west || value <= east;
+    }
+
+    private static boolean lonOverlaps(double min, double max, double west, double east) {
+        if (west <= east) {
+            return max >= west && min <= east;
+        }
+        return max >= west || min <= east;
+    }
+
+    private final class BuildTask extends RecursiveAction {
+
+        private final int lo;
+        private final int hi;
+
+        BuildTask(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                buildSequential(lo, hi);
+                return;
+            }
+            int mid = partition(lo, hi);
+            invokeAll(new BuildTask(lo, mid), new BuildTask(mid + 1, hi));
+            updateBounds(lo, hi, mid);
+        }
+    }
+
+    private void buildSequential(int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = partition(lo, hi);
+        buildSequential(lo, mid);
+        buildSequential(mid + 1, hi);
+        updateBounds(lo, hi, mid);
+    }
+
+    private int partition(int lo, int hi) {
+        int mid = (lo + hi) >>> 1;
+        int axis = widestAxis(lo, hi);
+        axes[mid] = (byte) axis;
+        select(xyz[axis], lo, hi - 1, mid);
+        return mid;
+    }
+
+    private void updateBounds(int lo, int hi, int mid) {
+        double south = lat[mid];
+        double north = lat[mid];
+        double west = lon[mid];
+        double east = lon[mid];
+        if (lo < mid) {
+            int left = (lo + mid) >>> 1;
+            south = Math.min(south, minLat[left]);
+            north = Math.max(north, maxLat[left]);
+            west = Math.min(west, minLon[left]);
+            east = Math.max(east, maxLon[left]);
+        }
+        if (mid + 1 < hi) {
+            int right = (mid + 1 + hi) >>> 1;
+            south = Math.min(south, minLat[right]);
+            north = Math.max(north, maxLat[right]);
+            west = Math.min(west, minLon[right]);
+            east = Math.max(east, maxLon[right]);
+        }
+        minLat[mid] = south;
+        maxLat[mid] = north;
+        minLon[mid] = west;
+        maxLon[mid] = east;
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int best = 0;
+        double bestSpread = -1;
+        int step = Math.max(1, (hi - lo) / 1024);
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double[] values = xyz[axis];
+            for (int i = lo; i < hi; i += step) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = axis;
+            }
+        }
+        return best;
+    }
+
+    // Трёхпутевое разбиение: одинаковые координаты (тысячи копий одного города) собираются
+    // в среднюю часть за один проход, иначе выбор медианы вырождается в O(n^2).
+    private void select(double[] values, int left, int right, int k) {
+        while (right > left) {
+            double pivot = values[(left + right) >>> 1];
+            int less = left;
+            int greater = right;
+            int i = left;
+            while (i <= greater) {
+                if (values[i] < pivot) {
+                    swap(less++, i++);
+                } else if (values[i] > pivot) {
+                    swap(i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < less) {
+                right = less - 1;
+            } else if (k > greater) {
+                left = greater + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        if (i == j) {
+            return;
+        }
+        for (double[] axis : xyz) {
+            double t = axis[i];
+            axis[i] = axis[j];
+            axis[j] = t;
+        }
+        double t = lat[i];
+        lat[i] = lat[j];
+        lat[j] = t;
+        t = lon[i];
+        lon[i] = lon[j];
+        lon[j] = t;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    private static final class NeighborHeap {
+
+        private final int[] positions;
+        private final double[] distances;
+        private int size;
+
+        NeighborHeap(int capacity) {
+            this.positions = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        double worst() {
+            return size < positions.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(int position, double distance) {
+            if (size < positions.length) {
+                positions[size] = position;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                positions[0] = position;
+                distances[0] = distance;
+                siftDown(0);
+            }
+        }
+
+        List<Neighbor> toSortedList(int[] ids) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            List<Neighbor> result = new ArrayList<>(size);
+            for (int i : order) {
+                result.add(new Neighbor(ids[positions[i]], chordToMeters(distances[i])));
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int p = positions[i];
+            positions[i] = positions[j];
+            positions[j] = p;
+            double d = distances[i];
+            distances[i] = distances[j];
+            distances[j] = d;
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
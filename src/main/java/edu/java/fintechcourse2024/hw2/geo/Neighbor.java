@@ -0,0 +1,4 @@
+package edu.java.fintechcourse2024.hw2.geo;
+
+public record Neighbor(int index, double distanceMeters) {
+}
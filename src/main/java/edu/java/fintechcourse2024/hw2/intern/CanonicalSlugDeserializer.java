@@ -0,0 +1,31 @@
+package edu.java.fintechcourse2024.hw2.intern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+public class CanonicalSlugDeserializer extends StdScalarDeserializer<String> {
+
+    private final SlugInterner interner;
+
+    public CanonicalSlugDeserializer() {
+        this(SlugInterner.shared());
+    }
+
+    public CanonicalSlugDeserializer(SlugInterner interner) {
+        super(String.class);
+        this.interner = interner;
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return StringDeserializer.instance.deserialize(parser, context);
+    }
+}
@@ -0,0 +1,9 @@
+package edu.java.fintechcourse2024.hw2.intern;
+
+public record InternStats(long hits, long misses, long bypassed, int size, int capacity, long bytesSaved) {
+
+    public double hitRate() {
+        long lookups = hits + misses + bypassed;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,202 @@
+package edu.java.fintechcourse2024.hw2.intern;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Таблица ограниченного размера с открытой адресацией: при переполнении окна проб
+// запись в домашнем слоте перезаписывается, поэтому память не растёт с числом уникальных слагов.
+// Хэш совпадает с String.hashCode, так что поиск по char[] и по ASCII-байтам не создаёт строку.
+public final class SlugInterner {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final int MAX_LENGTH = 64;
+
+    private static final int MAX_PROBES = 8;
+    private static final int STRING_HEADER_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private static final SlugInterner SHARED =
+            new SlugInterner(Integer.getInteger("city.slug.intern.capacity", DEFAULT_CAPACITY));
+
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final int shift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public SlugInterner(int capacity) {
+        if (capacity < MAX_PROBES) {
+            throw new IllegalArgumentException("Ёмкость таблицы слагов должна быть не меньше " + MAX_PROBES);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    public static SlugInterner shared() {
+        return SHARED;
+    }
+
+    public String intern(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            bypassed.increment();
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int home = home(hash);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String candidate = table.get((home + probe) & mask);
+            if (candidate == null) {
+                break;
+            }
+            if (candidate.hashCode() == hash && sameChars(candidate, chars, offset, length)) {
+                return hit(candidate);
+            }
+        }
+        return insert(new String(chars, offset, length), hash, home);
+    }
+
+    public String intern(byte[] utf8, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            bypassed.increment();
+            return new String(utf8, offset, length, StandardCharsets.UTF_8);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = utf8[offset + i];
+            if (b < 0) {
+                return intern(new String(utf8, offset, length, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + b;
+        }
+        int home = home(hash);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String candidate = table.get((home + probe) & mask);
+            if (candidate == null) {
+                break;
+            }
+            if (candidate.hashCode() == hash && sameAscii(candidate, utf8, offset, length)) {
+                return hit(candidate);
+            }
+        }
+        return insert(new String(utf8, offset, length, StandardCharsets.US_ASCII), hash, home);
+    }
+
+    public String intern(String slug) {
+        if (slug.length() > MAX_LENGTH) {
+            bypassed.increment();
+            return slug;
+        }
+        int hash = slug.hashCode();
+        int home = home(hash);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String candidate = table.get((home + probe) & mask);
+            if (candidate == null) {
+                break;
+            }
+            if (candidate.hashCode() == hash && candidate.equals(slug)) {
+                return hit(candidate);
+            }
+        }
+        return insert(slug, hash, home);
+    }
+
+    public InternStats stats() {
+        int size = 0;
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                size++;
+            }
+        }
+        return new InternStats(hits.sum(), misses.sum(), bypassed.sum(), size, table.length(), bytesSaved.sum());
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum() + bypassed.sum();
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+
+    public long bytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private String hit(String canonical) {
+        hits.increment();
+        bytesSaved.add(footprint(canonical));
+        return canonical;
+    }
+
+    private String insert(String slug, int hash, int home) {
+        misses.increment();
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = (home + probe) & mask;
+            String current = table.get(index);
+            if (current == null) {
+                if (table.compareAndSet(index, null, slug)) {
+                    return slug;
+                }
+                current = table.get(index);
+            }
+            if (current.hashCode() == hash && current.equals(slug)) {
+                return current;
+            }
+        }
+        table.set(home, slug);
+        return slug;
+    }
+
+    private static boolean sameChars(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAscii(String candidate, byte[] bytes, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Оценка размера дублирующей строки, которую не пришлось создавать: объект String и массив value
+    // (1 байт на символ для LATIN1, 2 байта иначе) с выравниванием по 8 байт.
+    static long footprint(String slug) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < slug.length(); i++) {
+            if (slug.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_HEADER_BYTES + align(ARRAY_HEADER_BYTES + (long) slug.length() * bytesPerChar);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Фибоначчиево хэширование: у соседних слагов вроде city1, city2 хэши идут подряд,
+    // и без перемешивания они собираются в длинные кластеры.
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+}
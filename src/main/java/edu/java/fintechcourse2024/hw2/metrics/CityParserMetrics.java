@@ -0,0 +1,88 @@
+package edu.java.fintechcourse2024.hw2.metrics;
+
+import edu.java.fintechcourse2024.hw2.intern.SlugInterner;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+public final class CityParserMetrics {
+
+    public static final String PARSE = "parse";
+    public static final String SERIALIZE = "serialize";
+    public static final String WRITE = "write";
+
+    private static volatile CityParserMetrics current = new CityParserMetrics(Metrics.globalRegistry);
+
+    private final MeterRegistry registry;
+    private final Timer parseTimer;
+    private final Timer serializeTimer;
+    private final Timer writeTimer;
+    private final DistributionSummary bytesIn;
+    private final DistributionSummary bytesOut;
+
+    private CityParserMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseTimer = timer(PARSE);
+        this.serializeTimer = timer(SERIALIZE);
+        this.writeTimer = timer(WRITE);
+        this.bytesIn = DistributionSummary.builder("city.parser.bytes.in")
+                .description("Размер прочитанных JSON-файлов")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesOut = DistributionSummary.builder("city.parser.bytes.out")
+                .description("Размер записанных XML-файлов")
+                .baseUnit("bytes")
+                .register(registry);
+        SlugInterner interner = SlugInterner.shared();
+        Gauge.builder("city.parser.slug.intern.hit.rate", interner, SlugInterner::hitRate)
+                .description("Доля слагов, найденных в таблице канонических строк")
+                .register(registry);
+        Gauge.builder("city.parser.slug.intern.bytes.saved", interner, SlugInterner::bytesSaved)
+                .description("Оценка памяти, сэкономленной на дублирующихся слагах")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public static CityParserMetrics current() {
+        return current;
+    }
+
+    public static CityParserMetrics bind(MeterRegistry registry) {
+        CityParserMetrics metrics = new CityParserMetrics(registry);
+        current = metrics;
+        return metrics;
+    }
+
+    public void recordParse(long nanos, long bytes) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+        bytesIn.record(bytes);
+    }
+
+    public void recordSerialize(long nanos) {
+        serializeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWrite(long nanos, long bytes) {
+        writeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        bytesOut.record(bytes);
+    }
+
+    public void recordError(String operation, Throwable error) {
+        registry.counter("city.parser.errors", "operation", operation, "exception", error.getClass().getSimpleName())
+                .increment();
+    }
+
+    // У одного имени метрики должно быть одно описание: операция различается только тегом
+    private Timer timer(String operation) {
+        return Timer.builder("city.parser.latency")
+                .description("Время этапа конвертации города: parse — чтение и парсинг JSON, "
+                        + "serialize — сериализация в XML, write — запись XML-файла")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
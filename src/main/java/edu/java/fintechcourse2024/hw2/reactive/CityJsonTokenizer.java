@@ -0,0 +1,81 @@
+package edu.java.fintechcourse2024.hw2.reactive;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CityJsonTokenizer implements AutoCloseable {
+
+    private final CityReader reader;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private TokenBuffer tokens;
+    private int objectDepth;
+    private boolean insideTopLevelArray;
+    private boolean topLevelArrayClosed;
+
+    public CityJsonTokenizer(CityReader reader) throws IOException {
+        this.reader = reader;
+        this.parser = reader.factory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.tokens = new TokenBuffer(parser);
+    }
+
+    public List<City> feed(byte[] chunk, int offset, int length) throws IOException {
+        feeder.feedInput(chunk, offset, offset + length);
+        return drain();
+    }
+
+    public List<City> endOfInput() throws IOException {
+        feeder.endOfInput();
+        List<City> cities = drain();
+        if (objectDepth > 0 || (insideTopLevelArray && !topLevelArrayClosed)) {
+            throw new JsonParseException(parser, "Неожиданный конец JSON: незавершённый объект города");
+        }
+        return cities;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private List<City> drain() throws IOException {
+        List<City> cities = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (objectDepth == 0) {
+                if (token == JsonToken.START_ARRAY && !insideTopLevelArray && !topLevelArrayClosed) {
+                    insideTopLevelArray = true;
+                    continue;
+                }
+                if (token == JsonToken.END_ARRAY && insideTopLevelArray) {
+                    topLevelArrayClosed = true;
+                    continue;
+                }
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Ожидался объект города, получено " + token);
+                }
+            }
+            tokens.copyCurrentEvent(parser);
+            if (token == JsonToken.START_OBJECT) {
+                objectDepth++;
+            } else if (token == JsonToken.END_OBJECT && --objectDepth == 0) {
+                cities.add(reader.read(tokens.asParser()));
+                tokens = new TokenBuffer(parser);
+            }
+        }
+        return cities;
+    }
+}
@@ -0,0 +1,83 @@
+package edu.java.fintechcourse2024.hw2.reactive;
+
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.CityXmlWriter;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class ReactiveCityConverter {
+
+    private static final byte[] XML_HEADER = "<Cities>\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] XML_FOOTER = "</Cities>\n".getBytes(StandardCharsets.UTF_8);
+
+    private final CityReader reader;
+
+    public ReactiveCityConverter(CityReader reader) {
+        this.reader = reader;
+    }
+
+    public Flux<City> parse(Flux<DataBuffer> json) {
+        return Flux.using(
+                () -> new CityJsonTokenizer(reader),
+                tokenizer -> json
+                        .concatMap(buffer -> feed(tokenizer, buffer))
+                        .concatWith(Flux.defer(() -> endOfInput(tokenizer))),
+                ReactiveCityConverter::closeQuietly);
+    }
+
+    // Заголовок отдаётся только после первого города (или пустого завершения): ошибка разбора
+    // в начале входа доходит до подписчика раньше, чем в ответ что-либо записано.
+    public Flux<DataBuffer> toXml(Flux<City> cities, DataBufferFactory factory) {
+        return cities.map(city -> factory.wrap(serialize(city)))
+                .switchOnFirst((first, body) -> first.isOnError()
+                        ? body
+                        : Flux.concat(
+                                Mono.fromSupplier(() -> factory.wrap(XML_HEADER)),
+                                body,
+                                Mono.fromSupplier(() -> factory.wrap(XML_FOOTER))));
+    }
+
+    public Flux<DataBuffer> convert(Flux<DataBuffer> json, DataBufferFactory factory) {
+        return toXml(parse(json), factory);
+    }
+
+    static byte[] serialize(City city) {
+        StringBuilder xml = new StringBuilder(128);
+        CityXmlWriter.append(city, xml).append('\n');
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Flux<City> feed(CityJsonTokenizer tokenizer, DataBuffer buffer) {
+        try {
+            byte[] chunk = new byte[buffer.readableByteCount()];
+            buffer.read(chunk);
+            return Flux.fromIterable(tokenizer.feed(chunk, 0, chunk.length));
+        } catch (IOException e) {
+            return Flux.error(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static Flux<City> endOfInput(CityJsonTokenizer tokenizer) {
+        try {
+            return Flux.fromIterable(tokenizer.endOfInput());
+        } catch (IOException e) {
+            return Flux.error(e);
+        }
+    }
+
+    private static void closeQuietly(CityJsonTokenizer tokenizer) {
+        try {
+            tokenizer.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package edu.java.fintechcourse2024.hw2.result;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+public sealed interface ConversionResult permits ConversionResult.Success, ConversionResult.Failure {
+
+    Path file();
+
+    static Success success(Path file, City city) {
+        return new Success(file, city);
+    }
+
+    static Failure failure(Path file, Throwable error) {
+        long offset = -1;
+        int line = -1;
+        int column = -1;
+        String message = error.getMessage();
+        if (error instanceof JsonProcessingException jsonError) {
+            message = jsonError.getOriginalMessage();
+            JsonLocation location = jsonError.getLocation();
+            if (location != null) {
+                offset = location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+                line = location.getLineNr();
+                column = location.getColumnNr();
+            }
+        }
+        return new Failure(file, FailureCategory.of(error), offset, line, column, message, error);
+    }
+
+    default boolean isSuccess() {
+        return this instanceof Success;
+    }
+
+    record Success(Path file, City city) implements ConversionResult {
+    }
+
+    // time фиксируется в момент ошибки, а не когда запись дойдёт до журнала
+    record Failure(Path file, FailureCategory category, long byteOffset, int line, int column,
+                   String message, Throwable cause, Instant time) implements ConversionResult {
+
+        public Failure(Path file, FailureCategory category, long byteOffset, int line, int column,
+                       String message, Throwable cause) {
+            this(file, category, byteOffset, line, column, message, cause, Instant.now());
+        }
+
+        @Override
+        public String toString() {
+            return category + " " + file + " [" + line + ":" + column + ", offset " + byteOffset + "] " + message;
+        }
+    }
+}
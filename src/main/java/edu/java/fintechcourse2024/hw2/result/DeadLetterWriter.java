@@ -0,0 +1,182 @@
+package edu.java.fintechcourse2024.hw2.result;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Асинхронно дописывает неудачные конвертации в NDJSON-файл для последующего повтора.
+// Файл открывается лениво при первой ошибке, поэтому успешные прогоны его не создают.
+// Вызывающий поток блокируется только при переполнении очереди - то есть только на пути ошибок.
+public class DeadLetterWriter implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterWriter.class);
+    private static final int DRAIN_BATCH = 256;
+    private static final ConversionResult.Failure POISON =
+            new ConversionResult.Failure(null, FailureCategory.UNEXPECTED, -1, -1, -1, null, null, null);
+
+    private final Path file;
+    private final BlockingQueue<ConversionResult.Failure> queue;
+    private final Thread worker;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    // Проверка closed и постановка в очередь идут под read-блокировкой, а close() берёт write-блокировку:
+    // так ни одна запись не может оказаться в очереди после POISON
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private boolean closed;
+    private JsonGenerator generator;
+
+    public DeadLetterWriter(Path file) {
+        this(file, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public DeadLetterWriter(Path file, int queueCapacity) {
+        this.file = file;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::drainLoop, "city-dead-letter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long lost() {
+        return lost.sum();
+    }
+
+    public void append(ConversionResult.Failure failure) {
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал ошибок " + file + " уже закрыт");
+            }
+            queue.put(failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lost.increment();
+            log.warn("Запись об ошибке для файла {} не попала в журнал: поток прерван", failure.file());
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.put(POISON);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<ConversionResult.Failure> batch = new ArrayList<>(DRAIN_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                boolean last = batch.removeIf(failure -> failure == POISON);
+                write(batch);
+                batch.clear();
+                if (last) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeGenerator();
+        }
+    }
+
+    private void write(List<ConversionResult.Failure> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            JsonGenerator out = generator();
+            for (ConversionResult.Failure failure : batch) {
+                out.writeStartObject();
+                out.writeStringField("time", failure.time().toString());
+                out.writeStringField("file", failure.file() == null ? null : failure.file().toString());
+                out.writeStringField("category", failure.category().name());
+                out.writeNumberField("byteOffset", failure.byteOffset());
+                out.writeNumberField("line", failure.line());
+                out.writeNumberField("column", failure.column());
+                out.writeStringField("message", failure.message());
+                out.writeStringField("exception",
+                        failure.cause() == null ? null : failure.cause().getClass().getName());
+                out.writeEndObject();
+                out.writeRaw('\n');
+            }
+            out.flush();
+            written.add(batch.size());
+        } catch (IOException | RuntimeException e) {
+            // Поток журнала не должен умирать, иначе вызовы append упрутся в заполненную очередь.
+            // Генератор после сбоя пересоздаётся, чтобы следующая пачка не продолжила оборванный объект.
+            lost.add(batch.size());
+            log.error("Не удалось записать {} ошибок конвертации в {}: {}", batch.size(), file, e.getMessage());
+            closeGenerator();
+        }
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            generator = CityReader.shared().factory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+
+    private void closeGenerator() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.close();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть журнал ошибок {}: {}", file, e.getMessage());
+        } finally {
+            generator = null;
+        }
+    }
+}
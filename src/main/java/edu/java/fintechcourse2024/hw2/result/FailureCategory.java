@@ -0,0 +1,23 @@
+package edu.java.fintechcourse2024.hw2.result;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.IOException;
+
+public enum FailureCategory {
+    PARSE, MAPPING, IO, UNEXPECTED;
+
+    public static FailureCategory of(Throwable error) {
+        if (error instanceof JsonParseException) {
+            return PARSE;
+        }
+        if (error instanceof JsonMappingException) {
+            return MAPPING;
+        }
+        if (error instanceof IOException) {
+            return IO;
+        }
+        return UNEXPECTED;
+    }
+}
@@ -0,0 +1,211 @@
+package edu.java.fintechcourse2024.hw2.sink;
+
+import edu.java.fintechcourse2024.hw2.CityXmlWriter;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CityXmlSink implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4 << 20;
+
+    private static final Logger log = LoggerFactory.getLogger(CityXmlSink.class);
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Cities>\n";
+    private static final String FOOTER = "</Cities>\n";
+
+    private final Path directory;
+    private final String prefix;
+    private final long maxBytesPerFile;
+    private final long maxRecordsPerFile;
+    private final FsyncPolicy fsyncPolicy;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder xml = new StringBuilder(256);
+    private final List<Path> files = new ArrayList<>();
+    private final Pattern fileName;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private FileChannel channel;
+    private int nextIndex;
+    private long bytesInFile;
+    private long recordsInFile;
+    private long totalRecords;
+    private boolean closed;
+
+    public CityXmlSink(Path directory, String prefix, long maxBytesPerFile, long maxRecordsPerFile,
+                       FsyncPolicy fsyncPolicy) {
+        this(directory, prefix, maxBytesPerFile, maxRecordsPerFile, fsyncPolicy, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CityXmlSink(Path directory, String prefix, long maxBytesPerFile, long maxRecordsPerFile,
+                       FsyncPolicy fsyncPolicy, int bufferSize) {
+        if (maxBytesPerFile <= 0 || maxRecordsPerFile <= 0) {
+            throw new IllegalArgumentException("Лимиты ротации должны быть положительными");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.maxBytesPerFile = maxBytesPerFile;
+        this.maxRecordsPerFile = maxRecordsPerFile;
+        this.fsyncPolicy = fsyncPolicy;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.fileName = Pattern.compile(Pattern.quote(prefix) + "-(\\d+)\\.xml");
+    }
+
+    public synchronized void write(City city) throws IOException {
+        if (closed) {
+            throw new IOException("Приёмник XML уже закрыт");
+        }
+        if (channel == null || recordsInFile >= maxRecordsPerFile || bytesInFile >= maxBytesPerFile) {
+            roll();
+        }
+        xml.setLength(0);
+        CityXmlWriter.append(city, xml).append('\n');
+        encode(xml);
+        recordsInFile++;
+        totalRecords++;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        drain();
+        if (fsyncPolicy == FsyncPolicy.ON_FLUSH) {
+            channel.force(false);
+        }
+    }
+
+    public synchronized List<Path> files() {
+        return List.copyOf(files);
+    }
+
+    public synchronized long records() {
+        return totalRecords;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeFile();
+        log.info("Записано {} городов в {} XML-файлов в каталоге {}", totalRecords, files.size(), directory);
+    }
+
+    private void roll() throws IOException {
+        closeFile();
+        Files.createDirectories(directory);
+        if (nextIndex == 0) {
+            nextIndex = lastExistingIndex() + 1;
+        }
+        // Файлы предыдущих запусков не перезаписываются: нумерация продолжается после них
+        Path file;
+        while (true) {
+            file = directory.resolve(String.format("%s-%05d.xml", prefix, nextIndex++));
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                break;
+            } catch (FileAlreadyExistsException e) {
+                log.debug("Файл {} уже существует, выбирается следующий номер", file);
+            }
+        }
+        files.add(file);
+        bytesInFile = 0;
+        recordsInFile = 0;
+        encode(HEADER);
+    }
+
+    private int lastExistingIndex() throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> existing = Files.newDirectoryStream(directory, prefix + "-*.xml")) {
+            for (Path path : existing) {
+                Matcher matcher = fileName.matcher(path.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).length() <= 9) {
+                    last = Math.max(last, Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return last;
+    }
+
+    private void closeFile() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            encode(FOOTER);
+            drain();
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void encode(CharSequence text) throws IOException {
+        // Запись сначала кодируется целиком во временный буфер, чтобы ошибка кодирования
+        // (например, одиночный суррогат) не оставила в файле обрывок XML
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        scratch.clear();
+        while (true) {
+            CoderResult result = encoder.encode(chars, scratch, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(scratch);
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2).put(scratch.flip());
+            } else {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IOException("Не удалось закодировать XML в UTF-8", e);
+                }
+            }
+        }
+        scratch.flip();
+        bytesInFile += scratch.remaining();
+        while (scratch.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(scratch.remaining(), buffer.remaining());
+            buffer.put(buffer.position(), scratch, scratch.position(), length);
+            buffer.position(buffer.position() + length);
+            scratch.position(scratch.position() + length);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
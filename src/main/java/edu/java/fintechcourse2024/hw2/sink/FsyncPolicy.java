@@ -0,0 +1,5 @@
+package edu.java.fintechcourse2024.hw2.sink;
+
+public enum FsyncPolicy {
+    NEVER, ON_ROLLOVER, ON_FLUSH
+}
@@ -0,0 +1,182 @@
+package edu.java.fintechcourse2024.hw2.split;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.io.ContentReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Последовательно сканирует массив верхнего уровня и режет его на куски по границам объектов.
+// Разбор не выполняется: отслеживаются только глубина вложенности, строки и экранирование,
+// поэтому сканирование в разы быстрее парсинга и не становится узким местом.
+// Запятые между элементами массива в куски не попадают, поэтому их проверяет сам сканер.
+public class JsonArraySplitter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final InputStream in;
+    private final long targetChunkBytes;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int limit;
+    private int index;
+    private long bufferStart;
+
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean started;
+    private boolean finished;
+    private Expect expect = Expect.VALUE_OR_END;
+    private int chunkIndex;
+    private long lastEnd;
+    private int line = 1;
+    private long lineStart;
+
+    public JsonArraySplitter(InputStream in, long targetChunkBytes) {
+        if (targetChunkBytes <= 0) {
+            throw new IllegalArgumentException("Размер куска должен быть положительным: " + targetChunkBytes);
+        }
+        this.in = in;
+        this.targetChunkBytes = targetChunkBytes;
+    }
+
+    public Chunk next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            skipByteOrderMark();
+        }
+        long chunkStart = -1;
+        int chunkLine = -1;
+        int chunkColumn = -1;
+        int b;
+        while ((b = read()) >= 0) {
+            long position = bufferStart + index - 1;
+            if (b == '\n') {
+                line++;
+                lineStart = position + 1;
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                continue;
+            }
+            if (depth == 0) {
+                if (b != '[') {
+                    throw error("Ожидался массив городов в начале файла", position);
+                }
+                depth = 1;
+                continue;
+            }
+            if (depth == 1) {
+                switch (b) {
+                    case '{' -> {
+                        if (expect == Expect.SEPARATOR) {
+                            throw error("Пропущена запятая между городами в массиве", position);
+                        }
+                        if (chunkStart < 0) {
+                            chunkStart = position;
+                            chunkLine = line;
+                            chunkColumn = column(position);
+                        }
+                        depth++;
+                    }
+                    case ',' -> {
+                        if (expect != Expect.SEPARATOR) {
+                            throw error("Лишняя запятая в массиве городов", position);
+                        }
+                        expect = Expect.VALUE;
+                    }
+                    case ']' -> {
+                        if (expect == Expect.VALUE) {
+                            throw error("Запятая перед концом массива городов", position);
+                        }
+                        depth = 0;
+                        finished = true;
+                        return chunkStart < 0 ? null : new Chunk(chunkIndex++, chunkStart, lastEnd, chunkLine, chunkColumn);
+                    }
+                    default -> throw error("Ожидался объект города или конец массива", position);
+                }
+                continue;
+            }
+            switch (b) {
+                case '"' -> inString = true;
+                case '{', '[' -> depth++;
+                case '}', ']' -> {
+                    depth--;
+                    if (depth == 1) {
+                        expect = Expect.SEPARATOR;
+                        lastEnd = position + 1;
+                        if (lastEnd - chunkStart >= targetChunkBytes) {
+                            return new Chunk(chunkIndex++, chunkStart, lastEnd, chunkLine, chunkColumn);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        throw error("Неожиданный конец файла внутри массива", bufferStart + limit - 1);
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (read() != 0xEF) {
+            if (limit > 0) {
+                index--;
+            }
+            return;
+        }
+        if (read() != 0xBB || read() != 0xBF) {
+            throw error("Некорректная метка порядка байтов UTF-8", 0);
+        }
+        // Jackson тоже не учитывает BOM при подсчёте колонок первой строки
+        lineStart = 3;
+    }
+
+    private int read() throws IOException {
+        if (index == limit) {
+            bufferStart += limit;
+            index = 0;
+            limit = Math.max(0, in.readNBytes(buffer, 0, buffer.length));
+            if (limit == 0) {
+                return -1;
+            }
+        }
+        return buffer[index++] & 0xFF;
+    }
+
+    private int column(long position) {
+        return (int) (position - lineStart + 1);
+    }
+
+    // Как и Jackson, колонка ошибки указывает на позицию сразу за неожиданным символом
+    private JsonParseException error(String message, long offset) {
+        int errorLine = offset >= lineStart ? line : -1;
+        int errorColumn = offset >= lineStart ? column(offset) + 1 : -1;
+        return new JsonParseException(null, message,
+                new JsonLocation(ContentReference.unknown(), offset, -1L, errorLine, errorColumn));
+    }
+
+    private enum Expect {
+        VALUE_OR_END, VALUE, SEPARATOR
+    }
+
+    // line и column - позиция начала куска в файле, нужны для пересчёта координат ошибок парсинга
+    public record Chunk(int index, long start, long end, int line, int column) {
+
+        public long length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package edu.java.fintechcourse2024.hw2.split;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.ContentReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityParser;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.codec.CityCodecs;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class ParallelCityArrayParser {
+
+    public static final long DEFAULT_CHUNK_BYTES = 16L * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelCityArrayParser.class);
+
+    private final ForkJoinPool pool;
+    private final CityReader reader;
+    private final long chunkBytes;
+    private final int maxChunksInFlight;
+
+    public ParallelCityArrayParser(ForkJoinPool pool, CityReader reader, long chunkBytes) {
+        if (chunkBytes > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Слишком большой размер куска: " + chunkBytes);
+        }
+        this.pool = pool;
+        this.reader = reader;
+        this.chunkBytes = chunkBytes;
+        this.maxChunksInFlight = pool.getParallelism() * 2;
+    }
+
+    public ParallelCityArrayParser() {
+        this(ForkJoinPool.commonPool(), CityReader.shared(), DEFAULT_CHUNK_BYTES);
+    }
+
+    // При preserveOrder города передаются consumer'у в порядке файла из вызывающего потока;
+    // иначе - сразу из рабочих потоков пула, и consumer должен быть потокобезопасным.
+    public long parse(Path file, boolean preserveOrder, Consumer<City> consumer) throws IOException {
+        if (CityCodecs.sniff(file) != CityCodecs.Codec.NONE) {
+            // Сжатый поток нельзя читать кусками с произвольных смещений - разбираем последовательно
+            log.debug("Файл {} сжат, параллельный разбор недоступен, читаем последовательно", file);
+            return CityParser.readJsonArray(file.toFile(), consumer);
+        }
+        Semaphore permits = new Semaphore(maxChunksInFlight);
+        AtomicBoolean failed = new AtomicBoolean();
+        Deque<CompletableFuture<List<City>>> pending = new ArrayDeque<>();
+        List<CompletableFuture<Long>> unordered = new ArrayList<>();
+        long count = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream scan = Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ))) {
+            JsonArraySplitter splitter = new JsonArraySplitter(scan, chunkBytes);
+            JsonArraySplitter.Chunk chunk;
+            while (!failed.get() && (chunk = splitter.next()) != null) {
+                JsonArraySplitter.Chunk current = chunk;
+                if (preserveOrder) {
+                    while (pending.size() >= maxChunksInFlight
+                            || !pending.isEmpty() && pending.peekFirst().isDone()) {
+                        count += deliver(pending.pollFirst(), consumer);
+                    }
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        List<City> cities = new ArrayList<>();
+                        parseChunk(channel, current, cities::add);
+                        return cities;
+                    }, pool));
+                } else {
+                    acquire(permits);
+                    unordered.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            // После первой ошибки оставшиеся куски уже не разбираются
+                            return failed.get() ? 0L : parseChunk(channel, current, consumer);
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            permits.release();
+                        }
+                    }, pool));
+                }
+            }
+            while (!pending.isEmpty()) {
+                count += deliver(pending.pollFirst(), consumer);
+            }
+            for (CompletableFuture<Long> future : unordered) {
+                count += join(future);
+            }
+            return count;
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(false));
+            unordered.forEach(future -> future.cancel(false));
+            throw e;
+        }
+    }
+
+    private long parseChunk(FileChannel channel, JsonArraySplitter.Chunk chunk, Consumer<City> consumer) {
+        int length = (int) chunk.length();
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = '[';
+        bytes[length + 1] = ']';
+        try {
+            ByteBuffer target = ByteBuffer.wrap(bytes, 1, length);
+            long position = chunk.start();
+            while (target.hasRemaining()) {
+                int read = channel.read(target, position);
+                if (read < 0) {
+                    throw new EOFException("Файл укоротился во время чтения куска " + chunk.index());
+                }
+                position += read;
+            }
+            try (JsonParser parser = reader.factory().createParser(bytes)) {
+                return CityParser.readJsonArray(parser, consumer);
+            } catch (JsonProcessingException e) {
+                throw relocate(e, chunk);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Переводит позицию ошибки из координат куска в координаты файла. Кусок парсится с приписанной
+    // в начале '[', поэтому на первой строке куска колонка смещена на один байт.
+    private static JsonProcessingException relocate(JsonProcessingException e, JsonArraySplitter.Chunk chunk) {
+        JsonLocation local = e.getLocation();
+        long offset = chunk.start() - 1;
+        int line = -1;
+        int column = -1;
+        if (local != null) {
+            offset += Math.max(0, local.getByteOffset());
+            if (local.getLineNr() == 1) {
+                line = chunk.line();
+                column = chunk.column() + local.getColumnNr() - 2;
+            } else if (local.getLineNr() > 1) {
+                line = chunk.line() + local.getLineNr() - 1;
+                column = local.getColumnNr();
+            }
+        }
+        JsonLocation location = new JsonLocation(ContentReference.unknown(), offset, -1L, line, column);
+        if (e instanceof JsonMappingException) {
+            JsonMappingException relocated = new JsonMappingException(null, e.getOriginalMessage(), location);
+            relocated.addSuppressed(e);
+            return relocated;
+        }
+        return new JsonParseException(null, e.getOriginalMessage(), location, e);
+    }
+
+    private static long deliver(CompletableFuture<List<City>> future, Consumer<City> consumer) throws IOException {
+        List<City> cities = join(future);
+        cities.forEach(consumer);
+        return cities.size();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void acquire(Semaphore permits) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прервано ожидание свободного слота для куска");
+        }
+    }
+}
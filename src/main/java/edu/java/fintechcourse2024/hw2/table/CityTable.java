@@ -0,0 +1,178 @@
+package edu.java.fintechcourse2024.hw2.table;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public class CityTable {
+
+    private final SlugArena slugs = new SlugArena();
+    private double[] lat;
+    private double[] lon;
+    private int[] slugIds;
+    private int size;
+
+    public CityTable() {
+        this(1024);
+    }
+
+    public CityTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.lat = new double[capacity];
+        this.lon = new double[capacity];
+        this.slugIds = new int[capacity];
+    }
+
+    public int add(City city) {
+        var coords = city.coords();
+        return add(city.slug(), coords != null ? coords.lat() : Double.NaN, coords != null ? coords.lon() : Double.NaN);
+    }
+
+    public int add(String slug, double cityLat, double cityLon) {
+        return addInterned(slugs.intern(slug), cityLat, cityLon);
+    }
+
+    public int add(byte[] utf8Slug, int offset, int length, double cityLat, double cityLon) {
+        return addInterned(slugs.intern(utf8Slug, offset, length), cityLat, cityLon);
+    }
+
+    public void addAll(Iterable<City> cities) {
+        cities.forEach(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double lat(int index) {
+        checkIndex(index);
+        return lat[index];
+    }
+
+    public double lon(int index) {
+        checkIndex(index);
+        return lon[index];
+    }
+
+    public int slugId(int index) {
+        checkIndex(index);
+        return slugIds[index];
+    }
+
+    public String slug(int index) {
+        return slugs.slug(slugId(index));
+    }
+
+    public int distinctSlugs() {
+        return slugs.size();
+    }
+
+    public City get(int index) {
+        checkIndex(index);
+        Coordinates coords = Double.isNaN(lat[index]) && Double.isNaN(lon[index])
+                ? null
+                : new Coordinates(lat[index], lon[index]);
+        return new City(slugs.slug(slugIds[index]), coords);
+    }
+
+    public View view(int index) {
+        checkIndex(index);
+        View view = new View();
+        view.index = index;
+        return view;
+    }
+
+    public void forEach(Consumer<View> action) {
+        View view = new View();
+        for (int i = 0; i < size; i++) {
+            view.index = i;
+            action.accept(view);
+        }
+    }
+
+    public void latColumn(double[] target, int from, int to) {
+        checkRange(from, to);
+        System.arraycopy(lat, from, target, 0, to - from);
+    }
+
+    public void lonColumn(double[] target, int from, int to) {
+        checkRange(from, to);
+        System.arraycopy(lon, from, target, 0, to - from);
+    }
+
+    public long estimatedBytes() {
+        return (long) lat.length * (Double.BYTES * 2 + Integer.BYTES) + slugs.bytesUsed();
+    }
+
+    public void trimToSize() {
+        lat = Arrays.copyOf(lat, size);
+        lon = Arrays.copyOf(lon, size);
+        slugIds = Arrays.copyOf(slugIds, size);
+    }
+
+    private int addInterned(int slugId, double cityLat, double cityLon) {
+        if (size == lat.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16L, (long) size + (size >> 1)));
+            if (capacity == size) {
+                throw new IllegalStateException("Превышена максимальная вместимость таблицы городов");
+            }
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+            slugIds = Arrays.copyOf(slugIds, capacity);
+        }
+        lat[size] = cityLat;
+        lon[size] = cityLon;
+        slugIds[size] = slugId;
+        return size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне диапазона [0, " + size + ")");
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Диапазон [" + from + ", " + to + ") вне [0, " + size + ")");
+        }
+    }
+
+    public final class View {
+
+        private int index;
+
+        private View() {
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public double lat() {
+            return lat[index];
+        }
+
+        public double lon() {
+            return lon[index];
+        }
+
+        public int slugId() {
+            return slugIds[index];
+        }
+
+        public String slug() {
+            return slugs.slug(slugIds[index]);
+        }
+
+        public boolean slugEquals(String slug) {
+            return slugs.slugEquals(slugIds[index], slug);
+        }
+
+        public City toCity() {
+            return get(index);
+        }
+    }
+}
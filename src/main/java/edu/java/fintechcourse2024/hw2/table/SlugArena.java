@@ -0,0 +1,136 @@
+package edu.java.fintechcourse2024.hw2.table;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class SlugArena {
+
+    static final int NO_SLUG = -1;
+
+    private byte[] bytes = new byte[4096];
+    private int used;
+    private int[] offsets = new int[256];
+    private int[] lengths = new int[256];
+    private int[] hashes = new int[256];
+    // Декодированные строки кэшируются по id слага: строк не больше, чем различных слагов.
+    // Гонка при ленивом заполнении безопасна - String неизменяем, в худшем случае декодируем дважды
+    private String[] decoded = new String[256];
+    private int size;
+    private int[] table = new int[512];
+    private byte[] scratch = new byte[64];
+
+    int intern(String slug) {
+        if (slug == null) {
+            return NO_SLUG;
+        }
+        int length = encode(slug);
+        return intern(scratch, 0, length);
+    }
+
+    int intern(byte[] source, int offset, int length) {
+        int hash = hash(source, offset, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == length
+                    && Arrays.equals(bytes, offsets[id], offsets[id] + length, source, offset, offset + length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return insert(source, offset, length, hash, slot);
+    }
+
+    String slug(int id) {
+        if (id == NO_SLUG) {
+            return null;
+        }
+        String slug = decoded[id];
+        if (slug == null) {
+            slug = new String(bytes, offsets[id], lengths[id], StandardCharsets.UTF_8);
+            decoded[id] = slug;
+        }
+        return slug;
+    }
+
+    boolean slugEquals(int id, String slug) {
+        if (id == NO_SLUG || slug == null) {
+            return id == NO_SLUG && slug == null;
+        }
+        int length = encode(slug);
+        return lengths[id] == length
+                && Arrays.equals(bytes, offsets[id], offsets[id] + length, scratch, 0, length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bytesUsed() {
+        return used + (long) offsets.length * Integer.BYTES * 4 + (long) table.length * Integer.BYTES;
+    }
+
+    private int insert(byte[] source, int offset, int length, int hash, int slot) {
+        if (used + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + length));
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            decoded = Arrays.copyOf(decoded, size * 2);
+        }
+        System.arraycopy(source, offset, bytes, used, length);
+        int id = size++;
+        offsets[id] = used;
+        lengths[id] = length;
+        hashes[id] = hash;
+        used += length;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private int encode(String slug) {
+        int length = slug.length();
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            char c = slug.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = slug.getBytes(StandardCharsets.UTF_8);
+                if (scratch.length < encoded.length) {
+                    scratch = new byte[encoded.length];
+                }
+                System.arraycopy(encoded, 0, scratch, 0, encoded.length);
+                return encoded.length;
+            }
+            scratch[i] = (byte) c;
+        }
+        return length;
+    }
+
+    private static int hash(byte[] source, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + source[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,353 @@
+package edu.java.fintechcourse2024.hw2.validation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public final class CityJsonValidator {
+
+    private static final byte[] SLUG = "slug".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COORDS = "coords".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAT = "lat".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LON = "lon".getBytes(StandardCharsets.US_ASCII);
+
+    private CityJsonValidator() {
+    }
+
+    public static ValidationResult validate(Path file) throws IOException {
+        return validate(Files.readAllBytes(file));
+    }
+
+    public static ValidationResult validate(byte[] json) {
+        return new Scanner(json).scan();
+    }
+
+    private static final class Scanner {
+
+        private final byte[] b;
+        private int pos;
+        private int line = 1;
+        private int lineStart;
+
+        Scanner(byte[] json) {
+            this.b = json;
+            if (json.length >= 3 && (json[0] & 0xFF) == 0xEF && (json[1] & 0xFF) == 0xBB && (json[2] & 0xFF) == 0xBF) {
+                pos = 3;
+                lineStart = 3;
+            }
+        }
+
+        ValidationResult scan() {
+            try {
+                skipWhitespace();
+                if (peek() == '[') {
+                    pos++;
+                    skipWhitespace();
+                    if (peek() == ']') {
+                        pos++;
+                    } else {
+                        while (true) {
+                            city();
+                            skipWhitespace();
+                            if (peek() == ',') {
+                                pos++;
+                                skipWhitespace();
+                            } else {
+                                expect(']');
+                                break;
+                            }
+                        }
+                    }
+                } else if (peek() == 'n') {
+                    literal("null");
+                } else {
+                    city();
+                }
+                skipWhitespace();
+                if (pos < b.length) {
+                    throw syntax("Лишние данные после окончания JSON");
+                }
+                return ValidationResult.valid();
+            } catch (Failure failure) {
+                return failure.result;
+            }
+        }
+
+        // Правила совпадают с десериализацией City в Jackson с настройками по умолчанию:
+        // ключи могут отсутствовать, slug может быть числом или булевым значением,
+        // координаты - null или строкой с числом, повторный ключ допустим, пока не получены все поля.
+        private void city() {
+            expect('{');
+            boolean slug = false;
+            boolean coords = false;
+            skipWhitespace();
+            if (peek() != '}') {
+                while (true) {
+                    int keyPos = pos;
+                    int keyLine = line;
+                    int keyLineStart = lineStart;
+                    int keyEnd = string();
+                    if (slug && coords) {
+                        throw schema("Повторный ключ после заполнения всех полей города", keyPos, keyLine, keyLineStart);
+                    }
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    if (keyEquals(keyPos + 1, keyEnd, SLUG)) {
+                        slug = true;
+                        slug();
+                    } else if (keyEquals(keyPos + 1, keyEnd, COORDS)) {
+                        coords = true;
+                        coordinates();
+                    } else {
+                        throw schema("Неизвестный ключ " + new String(b, keyPos, keyEnd - keyPos + 1, StandardCharsets.UTF_8),
+                                keyPos, keyLine, keyLineStart);
+                    }
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        pos++;
+                        skipWhitespace();
+                    } else {
+                        break;
+                    }
+                }
+            }
+            expect('}');
+        }
+
+        private void slug() {
+            int c = peek();
+            if (c == 'n') {
+                literal("null");
+            } else if (c == 't') {
+                literal("true");
+            } else if (c == 'f') {
+                literal("false");
+            } else if (c == '"') {
+                string();
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                number();
+            } else if (c == '{' || c == '[') {
+                throw schema("Значение slug должно быть строкой", pos, line, lineStart);
+            } else {
+                throw syntax("Ожидалось значение slug");
+            }
+        }
+
+        private void coordinates() {
+            if (peek() == 'n') {
+                literal("null");
+                return;
+            }
+            if (peek() != '{') {
+                if (peek() == '"' || peek() == '[' || peek() == 't' || peek() == 'f' || peek() == '-'
+                        || (peek() >= '0' && peek() <= '9')) {
+                    throw schema("Значение coords должно быть объектом", pos, line, lineStart);
+                }
+                throw syntax("Ожидалось значение coords");
+            }
+            pos++;
+            boolean lat = false;
+            boolean lon = false;
+            skipWhitespace();
+            if (peek() != '}') {
+                while (true) {
+                    int keyPos = pos;
+                    int keyLine = line;
+                    int keyLineStart = lineStart;
+                    int keyEnd = string();
+                    if (lat && lon) {
+                        throw schema("Повторный ключ после заполнения всех координат", keyPos, keyLine, keyLineStart);
+                    }
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    if (keyEquals(keyPos + 1, keyEnd, LAT)) {
+                        lat = true;
+                    } else if (keyEquals(keyPos + 1, keyEnd, LON)) {
+                        lon = true;
+                    } else {
+                        throw schema("Неизвестный ключ " + new String(b, keyPos, keyEnd - keyPos + 1, StandardCharsets.UTF_8),
+                                keyPos, keyLine, keyLineStart);
+                    }
+                    coordinate();
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        pos++;
+                        skipWhitespace();
+                    } else {
+                        break;
+                    }
+                }
+            }
+            expect('}');
+        }
+
+        private void coordinate() {
+            int c = peek();
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                number();
+            } else if (c == 'n') {
+                literal("null");
+            } else if (c == '"') {
+                int at = pos;
+                int atLine = line;
+                int atLineStart = lineStart;
+                int end = string();
+                if (!numericString(at + 1, end)) {
+                    throw schema("Координата не является числом", at, atLine, atLineStart);
+                }
+            } else if (c == '{' || c == '[' || c == 't' || c == 'f') {
+                throw schema("Координата должна быть числом", pos, line, lineStart);
+            } else {
+                throw syntax("Ожидалось число");
+            }
+        }
+
+        // Строка с escape-последовательностями пропускается: её проверит сам парсер.
+        private boolean numericString(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (b[i] == '\\') {
+                    return true;
+                }
+            }
+            String text = new String(b, from, to - from, StandardCharsets.UTF_8);
+            if (text.isBlank()) {
+                return true;
+            }
+            try {
+                Double.parseDouble(text);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private int string() {
+            expect('"');
+            while (pos < b.length) {
+                int c = b[pos] & 0xFF;
+                if (c == '"') {
+                    return pos++;
+                }
+                if (c == '\\') {
+                    pos++;
+                    int escaped = peek();
+                    if (escaped == 'u') {
+                        for (int i = 1; i <= 4; i++) {
+                            if (pos + i >= b.length || Character.digit(b[pos + i], 16) < 0) {
+                                pos += i;
+                                throw syntax("Некорректная escape-последовательность \\u");
+                            }
+                        }
+                        pos += 5;
+                    } else if ("\"\\/bfnrt".indexOf(escaped) >= 0) {
+                        pos++;
+                    } else {
+                        throw syntax("Некорректная escape-последовательность");
+                    }
+                } else if (c < 0x20) {
+                    throw syntax("Незакрытая строка или управляющий символ внутри строки");
+                } else {
+                    pos++;
+                }
+            }
+            throw syntax("Незакрытая строка");
+        }
+
+        private void number() {
+            if (peek() == '-') {
+                pos++;
+            }
+            if (peek() == '0') {
+                pos++;
+            } else if (peek() >= '1' && peek() <= '9') {
+                digits();
+            } else {
+                throw syntax("Ожидалась цифра");
+            }
+            if (peek() == '.') {
+                pos++;
+                if (!(peek() >= '0' && peek() <= '9')) {
+                    throw syntax("Ожидалась цифра после десятичной точки");
+                }
+                digits();
+            }
+            if (peek() == 'e' || peek() == 'E') {
+                pos++;
+                if (peek() == '+' || peek() == '-') {
+                    pos++;
+                }
+                if (!(peek() >= '0' && peek() <= '9')) {
+                    throw syntax("Ожидалась цифра в экспоненте");
+                }
+                digits();
+            }
+        }
+
+        private void digits() {
+            while (pos < b.length && b[pos] >= '0' && b[pos] <= '9') {
+                pos++;
+            }
+        }
+
+        private void literal(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (peek() != literal.charAt(i)) {
+                    throw syntax("Ожидалось " + literal);
+                }
+                pos++;
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < b.length) {
+                byte c = b[pos];
+                if (c == '\n') {
+                    line++;
+                    lineStart = pos + 1;
+                } else if (c != ' ' && c != '\t' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw syntax(pos >= b.length
+                        ? "Неожиданный конец файла, ожидалось '" + expected + "'"
+                        : "Ожидалось '" + expected + "'");
+            }
+            pos++;
+        }
+
+        private int peek() {
+            return pos < b.length ? b[pos] & 0xFF : -1;
+        }
+
+        private boolean keyEquals(int from, int to, byte[] key) {
+            return Arrays.equals(b, from, to, key, 0, key.length);
+        }
+
+        private Failure syntax(String message) {
+            return new Failure(new ValidationResult(ValidationResult.Kind.SYNTAX, pos, line, pos - lineStart + 1, message));
+        }
+
+        private Failure schema(String message, int at, int atLine, int atLineStart) {
+            return new Failure(new ValidationResult(ValidationResult.Kind.SCHEMA, at, atLine, at - atLineStart + 1, message));
+        }
+    }
+
+    private static final class Failure extends RuntimeException {
+
+        private final transient ValidationResult result;
+
+        Failure(ValidationResult result) {
+            super(result.message(), null, false, false);
+            this.result = result;
+        }
+    }
+}
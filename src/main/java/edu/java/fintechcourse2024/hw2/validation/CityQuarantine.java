@@ -0,0 +1,54 @@
+package edu.java.fintechcourse2024.hw2.validation;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class CityQuarantine {
+
+    private static final int MAX_ATTEMPTS = 10_000;
+
+    private CityQuarantine() {
+    }
+
+    public static Path move(Path file, Path quarantineDir, ValidationResult reason) throws IOException {
+        return move(file, file.toAbsolutePath().getParent(), quarantineDir, reason);
+    }
+
+    // Файл кладётся по тому же относительному пути, что и во входном каталоге, и никогда не
+    // перезаписывает уже лежащий в карантине: при совпадении имени добавляется номер.
+    public static Path move(Path file, Path inputRoot, Path quarantineDir, ValidationResult reason) throws IOException {
+        Path relative = inputRoot.toAbsolutePath().relativize(file.toAbsolutePath());
+        if (relative.startsWith("..")) {
+            relative = file.getFileName();
+        }
+        Path directory = quarantineDir.resolve(relative).getParent();
+        Files.createDirectories(directory);
+        String name = relative.getFileName().toString();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Path target = directory.resolve(attempt == 0 ? name : numbered(name, attempt));
+            Path reasonFile = target.resolveSibling(target.getFileName() + ".reason");
+            if (Files.exists(target) || Files.exists(reasonFile)) {
+                continue;
+            }
+            try {
+                Files.move(file, target);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            Files.writeString(reasonFile, reason.toString(), StandardOpenOption.CREATE_NEW);
+            return target;
+        }
+        throw new FileAlreadyExistsException(directory.resolve(name).toString(), null,
+                "Не удалось подобрать свободное имя в карантине");
+    }
+
+    private static String numbered(String name, int attempt) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0
+                ? name.substring(0, dot) + "-" + attempt + name.substring(dot)
+                : name + "-" + attempt;
+    }
+}
@@ -0,0 +1,23 @@
+package edu.java.fintechcourse2024.hw2.validation;
+
+public record ValidationResult(Kind kind, long offset, int line, int column, String message) {
+
+    private static final ValidationResult VALID = new ValidationResult(Kind.VALID, -1, 0, 0, null);
+
+    public static ValidationResult valid() {
+        return VALID;
+    }
+
+    public boolean isValid() {
+        return kind == Kind.VALID;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "VALID" : kind + " [" + line + ":" + column + "] " + message;
+    }
+
+    public enum Kind {
+        VALID, SYNTAX, SCHEMA
+    }
+}
@@ -0,0 +1,54 @@
+package edu.java.fintechcourse2024.hw2.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.java.fintechcourse2024.hw2.reactive.ReactiveCityConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.Semaphore;
+
+@RestController
+public class CityConversionController {
+
+    private static final Logger log = LoggerFactory.getLogger(CityConversionController.class);
+
+    private final ReactiveCityConverter converter;
+    private final Semaphore permits;
+
+    public CityConversionController(ReactiveCityConverter converter,
+                                    @Value("${city.http.max-concurrent-requests:64}") int maxConcurrentRequests) {
+        this.converter = converter;
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    @PostMapping(path = "/cities/xml",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_XML_VALUE)
+    public Flux<DataBuffer> convert(@RequestBody Flux<DataBuffer> body, ServerHttpResponse response) {
+        return Flux.defer(() -> {
+            if (!permits.tryAcquire()) {
+                log.debug("Превышен лимит одновременных запросов на конвертацию");
+                return Flux.<DataBuffer>error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Слишком много одновременных запросов"));
+            }
+            return converter.convert(body, response.bufferFactory())
+                    .onErrorMap(JsonProcessingException.class,
+                            e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage(), e))
+                    .doFinally(signal -> permits.release());
+        });
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
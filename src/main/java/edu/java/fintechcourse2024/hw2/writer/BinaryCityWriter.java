@@ -0,0 +1,92 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Каждая запись - varint-длина и сообщение в wire-формате protobuf:
+// message City { string slug = 1; Coordinates coords = 2; }
+// message Coordinates { double lat = 1; double lon = 2; }
+// Поток совместим с parseDelimitedFrom сгенерированных классов.
+public class BinaryCityWriter implements CityWriter {
+
+    static final int SLUG_TAG = 1 << 3 | 2;
+    static final int COORDS_TAG = 2 << 3 | 2;
+    static final int LAT_TAG = 1 << 3 | 1;
+    static final int LON_TAG = 2 << 3 | 1;
+    static final int COORDS_SIZE = 2 * (1 + Double.BYTES);
+
+    private final OutputStream out;
+    private final byte[] scratch = new byte[Long.BYTES];
+
+    public BinaryCityWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        if (city == null) {
+            return;
+        }
+        byte[] slug = city.slug() != null ? city.slug().getBytes(StandardCharsets.UTF_8) : null;
+        int size = 0;
+        if (slug != null) {
+            size += 1 + varintSize(slug.length) + slug.length;
+        }
+        if (city.coords() != null) {
+            size += 1 + varintSize(COORDS_SIZE) + COORDS_SIZE;
+        }
+        writeVarint(size);
+        if (slug != null) {
+            out.write(SLUG_TAG);
+            writeVarint(slug.length);
+            out.write(slug);
+        }
+        if (city.coords() != null) {
+            out.write(COORDS_TAG);
+            writeVarint(COORDS_SIZE);
+            out.write(LAT_TAG);
+            writeDouble(city.coords().lat());
+            out.write(LON_TAG);
+            writeDouble(city.coords().lon());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < Long.BYTES; i++) {
+            scratch[i] = (byte) (bits >>> (8 * i));
+        }
+        out.write(scratch);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
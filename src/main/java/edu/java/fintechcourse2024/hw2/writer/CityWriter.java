@@ -0,0 +1,20 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface CityWriter extends Closeable {
+
+    // null-город пропускается всеми форматами: в выводе не появляется ни пустой записи, ни строки
+    void write(City city) throws IOException;
+
+    void flush() throws IOException;
+
+    // Завершает вывод. Файловые писатели из CityWriters переносят результат на место только здесь,
+    // а close() без commit() удаляет незавершённый файл. Для потоковых писателей это просто close().
+    default void commit() throws IOException {
+        close();
+    }
+}
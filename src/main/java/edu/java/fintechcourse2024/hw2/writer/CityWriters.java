@@ -0,0 +1,79 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class CityWriters {
+
+    private CityWriters() {
+    }
+
+    // Результат появляется в file только после commit(), см. CityWriter.commit()
+    public static CityWriter open(Path file) throws IOException {
+        return open(file, Format.of(file));
+    }
+
+    public static CityWriter open(Path file, Format format) throws IOException {
+        return FileCityWriter.open(file, format);
+    }
+
+    public static CityWriter open(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("Не указан ни один файл для вывода городов");
+        }
+        if (files.size() == 1) {
+            return open(files.get(0));
+        }
+        List<CityWriter> writers = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                writers.add(open(file));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (CityWriter writer : writers) {
+                try {
+                    writer.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+        return new TeeCityWriter(writers);
+    }
+
+    public enum Format {
+        XML, CSV, NDJSON, BINARY;
+
+        public CityWriter create(OutputStream out) throws IOException {
+            return switch (this) {
+                case XML -> new XmlCityWriter(out);
+                case CSV -> new CsvCityWriter(out);
+                case NDJSON -> new NdjsonCityWriter(out);
+                case BINARY -> new BinaryCityWriter(out);
+            };
+        }
+
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - ".gz".length());
+            } else if (name.endsWith(".zst")) {
+                name = name.substring(0, name.length() - ".zst".length());
+            }
+            int dot = name.lastIndexOf('.');
+            String extension = dot >= 0 ? name.substring(dot + 1) : "";
+            return switch (extension) {
+                case "xml" -> XML;
+                case "csv" -> CSV;
+                case "ndjson", "jsonl" -> NDJSON;
+                case "bin", "pb" -> BINARY;
+                default -> throw new IllegalArgumentException("Неизвестный формат вывода: " + file);
+            };
+        }
+    }
+}
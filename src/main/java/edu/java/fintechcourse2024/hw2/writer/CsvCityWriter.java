@@ -0,0 +1,76 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class CsvCityWriter implements CityWriter {
+
+    private final Writer out;
+
+    public CsvCityWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.out.write("slug,lat,lon\r\n");
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        if (city == null) {
+            return;
+        }
+        writeField(city.slug());
+        out.write(',');
+        if (city.coords() != null) {
+            out.write(Double.toString(city.coords().lat()));
+            out.write(',');
+            out.write(Double.toString(city.coords().lon()));
+        } else {
+            out.write(',');
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
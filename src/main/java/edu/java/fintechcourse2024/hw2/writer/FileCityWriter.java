@@ -0,0 +1,81 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.codec.CityCodecs;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Пишет во временный файл рядом с целевым и переносит его на место только в commit():
+// при ошибке посреди входа не остаётся обрезанного, но внешне корректного файла.
+// Суффикс временного файла сохраняет расширение, поэтому кодек сжатия выбирается тот же.
+final class FileCityWriter implements CityWriter {
+
+    private final Path file;
+    private final Path temp;
+    private final CityWriter delegate;
+    private boolean closed;
+
+    private FileCityWriter(Path file, Path temp, CityWriter delegate) {
+        this.file = file;
+        this.temp = temp;
+        this.delegate = delegate;
+    }
+
+    static FileCityWriter open(Path file, CityWriters.Format format) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), ".", "-" + target.getFileName());
+        OutputStream out = null;
+        try {
+            out = CityCodecs.openOutput(temp);
+            return new FileCityWriter(target, temp, format.create(out));
+        } catch (IOException | RuntimeException e) {
+            if (out != null) {
+                out.close();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        delegate.write(city);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void commit() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Вывод в файл " + file + " уже завершён");
+        }
+        closed = true;
+        try {
+            delegate.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Закрытие без commit() отбрасывает незавершённый вывод
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            delegate.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
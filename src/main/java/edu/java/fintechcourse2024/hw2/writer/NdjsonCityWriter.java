@@ -0,0 +1,50 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class NdjsonCityWriter implements CityWriter {
+
+    private final JsonGenerator generator;
+
+    public NdjsonCityWriter(OutputStream out) throws IOException {
+        this.generator = CityReader.shared().factory().createGenerator(out);
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        if (city == null) {
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("slug", city.slug());
+        if (city.coords() != null) {
+            generator.writeObjectFieldStart("coords");
+            generator.writeNumberField("lat", city.coords().lat());
+            generator.writeNumberField("lon", city.coords().lon());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator.isClosed()) {
+            return;
+        }
+        try (generator) {
+            generator.writeRaw('\n');
+        }
+    }
+}
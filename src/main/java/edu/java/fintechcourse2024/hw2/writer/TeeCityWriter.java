@@ -0,0 +1,72 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.IOException;
+import java.util.List;
+
+public class TeeCityWriter implements CityWriter {
+
+    private final List<CityWriter> writers;
+
+    public TeeCityWriter(List<CityWriter> writers) {
+        this.writers = List.copyOf(writers);
+    }
+
+    public TeeCityWriter(CityWriter... writers) {
+        this(List.of(writers));
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        for (CityWriter writer : writers) {
+            writer.write(city);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (CityWriter writer : writers) {
+            writer.flush();
+        }
+    }
+
+    // Каждый вывод фиксируется независимо: сбой одного не отменяет уже готовые остальные
+    @Override
+    public void commit() throws IOException {
+        IOException failure = null;
+        for (CityWriter writer : writers) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (CityWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
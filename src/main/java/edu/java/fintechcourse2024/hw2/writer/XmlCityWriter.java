@@ -0,0 +1,61 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import edu.java.fintechcourse2024.hw2.CityXmlWriter;
+import edu.java.fintechcourse2024.hw2.dto.City;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class XmlCityWriter implements CityWriter {
+
+    private final Writer out;
+    private final StringBuilder buffer = new StringBuilder(256);
+    private boolean closed;
+
+    public XmlCityWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Cities>");
+    }
+
+    @Override
+    public void write(City city) throws IOException {
+        if (city == null) {
+            return;
+        }
+        // Отступы массива: каждый город на два пробела глубже <Cities>, пустой slug вместо null
+        buffer.setLength(0);
+        buffer.append("\n  <City>\n    <slug>");
+        if (city.slug() != null) {
+            CityXmlWriter.appendEscaped(city.slug(), buffer);
+        }
+        buffer.append("</slug>\n    <coords>\n      <lat>");
+        var coords = city.coords();
+        if (coords != null) {
+            buffer.append(coords.lat()).append("</lat>\n      <lon>").append(coords.lon());
+        } else {
+            buffer.append("N/A</lat>\n      <lon>N/A");
+        }
+        buffer.append("</lon>\n    </coords>\n  </City>");
+        out.append(buffer);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out) {
+            out.write("\n</Cities>");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package edu.java.fintechcourse2024.hw2;
+
+import edu.java.fintechcourse2024.hw2.sink.CityXmlSink;
+import edu.java.fintechcourse2024.hw2.sink.FsyncPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityParserStreamingTest {
+
+    private static final String SPB = "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}";
+    private static final String MSK = "{\"slug\":\"msk\",\"coords\":null}";
+
+    @Test
+    void convertsJsonArrayToXml() throws IOException {
+        Path dir = Files.createTempDirectory("city-stream");
+        Path json = write(dir.resolve("cities.json"), "[" + SPB + "," + MSK + "]");
+        Path xml = dir.resolve("cities.xml");
+
+        assertEquals(2, CityParser.convertJsonArrayToXML(json.toFile(), xml.toFile()));
+
+        String content = Files.readString(xml);
+        assertTrue(content.contains("<slug>spb</slug>"), content);
+        assertTrue(content.contains("<lat>59.9</lat>"), content);
+        assertTrue(content.contains("<slug>msk</slug>"), content);
+        assertTrue(content.contains("<lat>N/A</lat>"), content);
+        assertTrue(content.trim().endsWith("</Cities>"), content);
+        assertEquals(List.of(json, xml), files(dir));
+    }
+
+    @Test
+    void keepsCompressionOfTheTargetFile() throws IOException {
+        Path dir = Files.createTempDirectory("city-stream");
+        Path json = write(dir.resolve("cities.json"), "[" + SPB + "]");
+        Path xml = dir.resolve("cities.xml.gz");
+
+        assertEquals(1, CityParser.convertJsonArrayToXML(json.toFile(), xml.toFile()));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(xml))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("<slug>spb</slug>"));
+        }
+    }
+
+    @Test
+    void leavesNoPartialFileOnMalformedInput() throws IOException {
+        Path dir = Files.createTempDirectory("city-stream");
+        Path json = write(dir.resolve("cities.json"), "[" + SPB + "," + MSK + ",{\"slug\":");
+        Path xml = dir.resolve("cities.xml");
+
+        assertEquals(0, CityParser.convertJsonArrayToXML(json.toFile(), xml.toFile()));
+
+        assertFalse(Files.exists(xml));
+        assertEquals(List.of(json), files(dir));
+    }
+
+    @Test
+    void keepsPreviousOutputOnMalformedInput() throws IOException {
+        Path dir = Files.createTempDirectory("city-stream");
+        Path json = write(dir.resolve("cities.json"), "[" + SPB + ",]");
+        Path xml = write(dir.resolve("cities.xml"), "<Cities/>");
+
+        assertEquals(0, CityParser.convertJsonArrayToXML(json.toFile(), xml.toFile()));
+
+        assertEquals("<Cities/>", Files.readString(xml));
+        assertEquals(List.of(json, xml), files(dir));
+    }
+
+    @Test
+    void convertsJsonArrayIntoRollingXmlFiles() throws IOException {
+        Path dir = Files.createTempDirectory("city-stream");
+        Path json = write(dir.resolve("cities.json"), "[" + SPB + "," + MSK + "," + SPB + "]");
+        Path out = dir.resolve("out");
+
+        try (CityXmlSink sink = new CityXmlSink(out, "cities", Long.MAX_VALUE, 2, FsyncPolicy.NEVER)) {
+            assertEquals(3, CityParser.convertJsonArrayToXML(json.toFile(), sink));
+        }
+
+        List<Path> parts = files(out);
+        assertEquals(List.of(out.resolve("cities-00001.xml"), out.resolve("cities-00002.xml")), parts);
+        String first = Files.readString(parts.get(0));
+        assertTrue(first.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Cities>"), first);
+        assertTrue(first.contains("<slug>msk</slug>"), first);
+        assertTrue(Files.readString(parts.get(1)).trim().endsWith("</Cities>"));
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        return Files.writeString(file, content);
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import edu.java.fintechcourse2024.hw2.ConversionLog;
+import edu.java.fintechcourse2024.hw2.LogMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityBatchConverterTest {
+
+    private static final String SPB = "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}";
+    private static final String MSK = "{\"slug\":\"msk\",\"coords\":{\"lat\":55.7,\"lon\":37.6}}";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(CityBatchConverter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @AfterEach
+    void restoreLogging() {
+        logger.detachAppender(appender);
+        ConversionLog.configure(LogMode.PER_FILE, 1000);
+    }
+
+    @Test
+    void aggregatedModeCountsEveryFileOfTheBatch() throws IOException, InterruptedException {
+        // Интервал больше времени теста: вся сводка выводится только итоговым flush
+        ConversionLog.configure(LogMode.AGGREGATED, 1000, Duration.ofHours(1));
+        appender.start();
+        logger.addAppender(appender);
+        Path input = Files.createTempDirectory("city-batch");
+        Files.writeString(input.resolve("city1.json"), SPB);
+        Files.writeString(input.resolve("city2.json"), MSK);
+        Files.writeString(input.resolve("city3.json"), "{\"slug\":");
+        Path output = Files.createTempDirectory("city-batch-out");
+
+        BatchResult result;
+        try (CityBatchConverter converter = new CityBatchConverter(2)) {
+            result = converter.convertDirectory(input, output);
+        }
+
+        assertEquals(2, result.converted());
+        assertEquals(1, result.failed());
+        List<String> progress = appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .filter(message -> message.startsWith("Прогресс"))
+                .toList();
+        assertEquals(1, progress.size(), progress.toString());
+        String summary = progress.get(0);
+        assertTrue(summary.contains("распарсено JSON 2 "), summary);
+        assertTrue(summary.contains("сохранено XML 2 "), summary);
+        assertTrue(summary.endsWith("ошибок 1"), summary);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngine;
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngines;
+import edu.java.fintechcourse2024.hw2.result.DeadLetterWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityPipelineTest {
+
+    private static final String SPB = "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}";
+    private static final String BOOM = "{\"slug\":\"boom\",\"coords\":null}";
+
+    // Очереди на один элемент: остановившийся воркер сразу блокирует предыдущий этап
+    private static final CityPipeline.Config TIGHT = new CityPipeline.Config(1, 1, 1, 1, 1);
+
+    @Test
+    void convertsDirectoryAndCountsFailedItems() throws IOException, InterruptedException {
+        Path input = Files.createTempDirectory("city-pipeline");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(input.resolve("city" + i + ".json"), SPB);
+        }
+        Files.writeString(input.resolve("city-broken.json"), "{\"slug\":");
+        Path output = Files.createTempDirectory("city-pipeline-out");
+
+        CityPipeline pipeline = new CityPipeline(TIGHT);
+        BatchResult result = pipeline.convertDirectory(input, output);
+
+        assertEquals(5, result.converted());
+        assertEquals(1, result.parseErrors());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(Files.readString(output.resolve("city" + i + ".xml")).contains("<slug>spb</slug>"));
+        }
+        assertFalse(Files.exists(output.resolve("city-broken.xml")));
+        Map<String, StageMetrics> metrics = pipeline.metrics().stream()
+                .collect(Collectors.toMap(StageMetrics::stage, Function.identity()));
+        assertEquals(6, metrics.get("read").processed());
+        assertEquals(6, metrics.get("parse").processed());
+        assertEquals(5, metrics.get("write").processed());
+    }
+
+    @Test
+    void keepsRunningWhenTheErrorHandlerFails() throws IOException {
+        Path input = Files.createTempDirectory("city-pipeline");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Path file = input.resolve("city" + i + ".json");
+            Files.writeString(file, i % 2 == 0 ? SPB : BOOM);
+            files.add(file);
+        }
+        Path output = Files.createTempDirectory("city-pipeline-out");
+        // Закрытый журнал бросает исключение из обработчика ошибок этапа
+        DeadLetterWriter deadLetters = new DeadLetterWriter(output.resolve("failed.ndjson"));
+        deadLetters.close();
+        CityPipeline pipeline = new CityPipeline(TIGHT, new FailingEngine()).enableDeadLetters(deadLetters);
+
+        BatchResult[] result = new BatchResult[1];
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> result[0] = pipeline.run(files, input, output));
+
+        assertEquals(10, result[0].converted());
+        assertEquals(10, result[0].unexpectedErrors());
+        StageMetrics parse = pipeline.metrics().get(1);
+        assertEquals(20, parse.processed());
+        assertEquals(10, parse.errors());
+    }
+
+    // Ошибка, которую этап не перехватывает сам, доходит до обработчика onError
+    private static final class FailingEngine implements CityParsingEngine {
+        private final CityParsingEngine delegate = CityParsingEngines.defaultEngine();
+
+        @Override
+        public String name() {
+            return "failing";
+        }
+
+        @Override
+        public City parse(byte[] json) throws IOException {
+            if (new String(json, StandardCharsets.UTF_8).contains("boom")) {
+                throw new AssertionError("boom");
+            }
+            return delegate.parse(json);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.java.fintechcourse2024.hw2.batch;
+
+import edu.java.fintechcourse2024.hw2.engine.CityParsingEngines;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityWatchServiceTest {
+
+    private static final String SPB = "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}";
+
+    @Test
+    void regeneratesOutputDeletedByHand() throws Exception {
+        Path input = Files.createTempDirectory("city-watch");
+        Path output = Files.createTempDirectory("city-watch-out");
+        Path json = Files.writeString(input.resolve("city1.json"), SPB);
+        Path xml = output.resolve("city1.xml");
+
+        runOnce(input, output, true, () -> Files.exists(xml));
+        Files.delete(xml);
+        // Вход не менялся, но XML нет: повторный запуск должен его восстановить
+        runOnce(input, output, true, () -> Files.exists(xml));
+
+        assertTrue(Files.readString(xml).contains("<slug>spb</slug>"));
+        assertTrue(ConversionManifest.load(output.resolve(".city-manifest")).isUnchanged("city1.json", json));
+    }
+
+    @Test
+    void deletedInputRemovesManifestEntryAndOutput() throws Exception {
+        Path input = Files.createTempDirectory("city-watch");
+        Path output = Files.createTempDirectory("city-watch-out");
+        Path json = input.resolve("city1.json");
+        Path xml = output.resolve("city1.xml");
+
+        CityWatchService service = service(input, output, true);
+        service.start();
+        try {
+            Files.writeString(json, SPB);
+            await(() -> Files.exists(xml));
+            Files.delete(json);
+            await(() -> !Files.exists(xml));
+        } finally {
+            service.stop();
+        }
+
+        assertEquals(0, ConversionManifest.load(output.resolve(".city-manifest")).keys().size());
+    }
+
+    @Test
+    void inputDeletedWhileStoppedIsCleanedUpOnStart() throws Exception {
+        Path input = Files.createTempDirectory("city-watch");
+        Path output = Files.createTempDirectory("city-watch-out");
+        Path json = Files.writeString(input.resolve("city1.json"), SPB);
+        Path xml = output.resolve("city1.xml");
+
+        runOnce(input, output, false, () -> Files.exists(xml));
+        Files.delete(json);
+        runOnce(input, output, false,
+                () -> ConversionManifest.load(output.resolve(".city-manifest")).keys().isEmpty());
+
+        // Политика без удаления оставляет XML, но запись о входе из манифеста уходит
+        assertTrue(Files.exists(xml));
+    }
+
+    private static void runOnce(Path input, Path output, boolean deleteOrphans, Condition done) throws Exception {
+        CityWatchService service = service(input, output, deleteOrphans);
+        service.start();
+        try {
+            await(done);
+        } finally {
+            service.stop();
+        }
+    }
+
+    private static CityWatchService service(Path input, Path output, boolean deleteOrphans) {
+        return new CityWatchService(input, output, CityBatchConverter.DEFAULT_PATTERN, Duration.ofMillis(50), 1,
+                deleteOrphans, CityParsingEngines.defaultEngine());
+    }
+
+    private static void await(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.isMet()) {
+            assertTrue(System.nanoTime() < deadline, "Не дождались обработки каталога");
+            Thread.sleep(20);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean isMet() throws IOException;
+    }
+}
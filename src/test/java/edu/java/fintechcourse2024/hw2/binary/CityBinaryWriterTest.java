@@ -0,0 +1,93 @@
+package edu.java.fintechcourse2024.hw2.binary;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CityBinaryWriterTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("city-binary");
+        Path file = dir.resolve("cities.bin");
+        // Больше, чем помещается в буфер колонки: часть данных уходит во временные файлы до close()
+        List<City> cities = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            cities.add(switch (i % 5) {
+                case 0 -> new City("city" + (i % 1000), new Coordinates(i * 0.001, -i * 0.002));
+                case 1 -> new City(null, new Coordinates(1, 2));
+                case 2 -> new City("город-" + (i % 7), null);
+                case 3 -> new City(null, null);
+                default -> new City("x".repeat(300 + i % 3), new Coordinates(-90, 180));
+            });
+        }
+
+        CityBinaryWriter.write(file, cities);
+
+        try (CityBinaryReader reader = CityBinaryReader.open(file)) {
+            assertEquals(cities.size(), reader.size());
+            for (int i = 0; i < cities.size(); i++) {
+                assertEquals(cities.get(i), reader.get(i), "index " + i);
+            }
+            // i кратно 5, поэтому слагов cityN ровно 200
+            assertEquals(200 + 7 + 3, reader.dictionarySize());
+            assertEquals("city0", reader.dictionarySlug(reader.slugId(0)));
+            assertNull(reader.slug(1));
+        }
+        assertEquals(List.of(file), files(dir));
+    }
+
+    @Test
+    void emptyFileRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("city-binary");
+        Path file = dir.resolve("cities.bin");
+
+        CityBinaryWriter.write(file, List.of());
+
+        try (CityBinaryReader reader = CityBinaryReader.open(file)) {
+            assertEquals(0, reader.size());
+            assertEquals(0, reader.dictionarySize());
+        }
+        assertEquals(List.of(file), files(dir));
+    }
+
+    @Test
+    void failedOpenLeavesNoSpillFiles() throws IOException {
+        Path dir = Files.createTempDirectory("city-binary");
+        // Итоговый файл не открыть на запись: временные файлы колонок уже созданы и должны быть удалены
+        Path file = Files.createDirectory(dir.resolve("cities.bin"));
+
+        assertThrows(IOException.class, () -> new CityBinaryWriter(file));
+
+        assertEquals(List.of(file), files(dir));
+    }
+
+    @Test
+    void rejectsAppendAfterClose() throws IOException {
+        Path dir = Files.createTempDirectory("city-binary");
+        CityBinaryWriter writer = new CityBinaryWriter(dir.resolve("cities.bin"));
+        writer.append(new City("spb", new Coordinates(59.9, 30.3)));
+        writer.close();
+        writer.close();
+
+        assertThrows(IllegalStateException.class, () -> writer.append(new City("msk", null)));
+        assertEquals(1, writer.size());
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
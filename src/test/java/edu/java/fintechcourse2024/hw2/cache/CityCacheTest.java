@@ -0,0 +1,189 @@
+package edu.java.fintechcourse2024.hw2.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityCacheTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private final CountingReader reader = new CountingReader();
+
+    @Test
+    void clockGivesReferencedEntriesASecondChance() throws IOException {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path a = city(dir, "a");
+        Path b = city(dir, "b");
+        Path c = city(dir, "c");
+        CityCache cache = new CityCache(reader, 2, HOUR, HOUR);
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        assertEquals("a", cache.getBySlug("a").slug());
+        assertEquals("c", cache.getBySlug("c").slug());
+        assertNull(cache.getBySlug("b"));
+        assertEquals(3, reader.reads.get());
+    }
+
+    @Test
+    void expiredEntryIsNotServedBySlug() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path a = city(dir, "a");
+        CityCache cache = new CityCache(reader, 10, Duration.ofMillis(50), HOUR);
+
+        cache.get(a);
+        assertEquals("a", cache.getBySlug("a").slug());
+        Thread.sleep(100);
+
+        assertNull(cache.getBySlug("a"));
+        assertEquals(0, cache.size());
+        assertEquals("a", cache.get(a).slug());
+        assertEquals(2, reader.reads.get());
+    }
+
+    @Test
+    void changedFileIsReloaded() throws IOException {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path file = city(dir, "spb");
+        CityCache cache = new CityCache(reader, 10, HOUR, Duration.ZERO);
+
+        assertEquals("spb", cache.get(file).slug());
+        write(file, "moscow");
+
+        assertEquals("moscow", cache.get(file).slug());
+        assertNull(cache.getBySlug("spb"));
+        assertEquals("moscow", cache.getBySlug("moscow").slug());
+    }
+
+    @Test
+    void invalidatedEntryIsNotServedBySlug() throws IOException {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path a = city(dir, "a");
+        CityCache cache = new CityCache(reader, 10, HOUR, HOUR);
+
+        cache.get(a);
+        cache.invalidate(a);
+
+        assertNull(cache.getBySlug("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path a = city(dir, "a");
+        CityCache cache = new CityCache(reader, 10, HOUR, HOUR);
+        reader.gate = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<City>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(a)));
+            }
+            assertTrue(reader.entered.await(10, TimeUnit.SECONDS));
+            while (cache.stats().misses() < 8) {
+                Thread.sleep(1);
+            }
+            // Даём промахнувшимся потокам дойти до ожидания общей загрузки
+            Thread.sleep(50);
+            reader.gate.countDown();
+
+            for (Future<City> result : results) {
+                assertEquals("a", result.get(10, TimeUnit.SECONDS).slug());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, reader.reads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void loadStartedBeforeInvalidateIsDiscarded() throws Exception {
+        Path dir = Files.createTempDirectory("city-cache");
+        Path file = city(dir, "spb");
+        CityCache cache = new CityCache(reader, 10, HOUR, HOUR);
+        reader.gate = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<City> stale = pool.submit(() -> cache.get(file));
+            assertTrue(reader.entered.await(10, TimeUnit.SECONDS));
+            write(file, "moscow");
+            cache.invalidate(file);
+            reader.gate.countDown();
+
+            // Начатая загрузка отдаёт результат своему вызывающему, но в кэш его не кладёт
+            assertEquals("spb", stale.get(10, TimeUnit.SECONDS).slug());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, cache.size());
+        assertNull(cache.getBySlug("spb"));
+        assertEquals("moscow", cache.get(file).slug());
+        assertEquals("moscow", cache.getBySlug("moscow").slug());
+    }
+
+    private static Path city(Path dir, String slug) throws IOException {
+        return write(dir.resolve(slug + ".json"), slug);
+    }
+
+    private static Path write(Path file, String slug) throws IOException {
+        return Files.writeString(file, "{\"slug\":\"" + slug + "\",\"coords\":{\"lat\":1.0,\"lon\":2.0}}");
+    }
+
+    // Считает разборы файлов; при заданном gate читает файл и задерживает разбор до сигнала теста
+    private static final class CountingReader extends CityReader {
+        final AtomicInteger reads = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch gate;
+
+        CountingReader() {
+            super(new ObjectMapper());
+        }
+
+        @Override
+        public City read(File jsonFile) throws IOException {
+            reads.incrementAndGet();
+            byte[] json = Files.readAllBytes(jsonFile.toPath());
+            entered.countDown();
+            CountDownLatch latch = gate;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            return read(json);
+        }
+    }
+}
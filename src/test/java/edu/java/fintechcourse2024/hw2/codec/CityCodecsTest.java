@@ -0,0 +1,126 @@
+package edu.java.fintechcourse2024.hw2.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityCodecsTest {
+
+    @Test
+    void gzipRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("city-codecs");
+        byte[] data = cities(100);
+        Path file = dir.resolve("cities.json.gz");
+
+        CityCodecs.write(file, data);
+
+        assertEquals(CityCodecs.Codec.GZIP, CityCodecs.sniff(file));
+        assertArrayEquals(data, CityCodecs.readAllBytes(file));
+        assertArrayEquals(data, gunzip(Files.readAllBytes(file)));
+    }
+
+    @Test
+    void parallelGzipRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("city-codecs");
+        // Больше одного блока: файл состоит из нескольких gzip-членов
+        byte[] data = cities(60_000);
+        assertTrue(data.length > 2 * ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+        Path file = dir.resolve("cities.json.gz");
+
+        CityCodecs.write(file, data);
+
+        assertArrayEquals(data, CityCodecs.readAllBytes(file));
+        try (InputStream in = CityCodecs.openInput(file)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        assertArrayEquals(data, gunzip(Files.readAllBytes(file)));
+    }
+
+    @Test
+    void parallelGzipWritesBlocksInOrder() throws IOException {
+        byte[] data = cities(500);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new ParallelGzipOutputStream(compressed, executor, 4, 1000)) {
+            for (int offset = 0; offset < data.length; offset += 777) {
+                out.write(data, offset, Math.min(777, data.length - offset));
+            }
+            out.write('\n');
+        } finally {
+            executor.shutdown();
+        }
+
+        byte[] expected = new byte[data.length + 1];
+        System.arraycopy(data, 0, expected, 0, data.length);
+        expected[data.length] = '\n';
+        assertArrayEquals(expected, gunzip(compressed.toByteArray()));
+    }
+
+    @Test
+    void emptyParallelGzipIsReadable() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, Runnable::run, 2).close();
+
+        assertTrue(compressed.size() > 0);
+        assertEquals(0, gunzip(compressed.toByteArray()).length);
+
+        Path file = Files.createTempDirectory("city-codecs").resolve("empty.xml.gz");
+        CityCodecs.openOutput(file).close();
+        assertEquals(0, gunzip(Files.readAllBytes(file)).length);
+    }
+
+    @Test
+    void zstdRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("city-codecs");
+        for (byte[] data : new byte[][] {cities(100), cities(60_000)}) {
+            Path file = dir.resolve("cities.json.zst");
+
+            CityCodecs.write(file, data);
+
+            assertEquals(CityCodecs.Codec.ZSTD, CityCodecs.sniff(file));
+            assertArrayEquals(data, CityCodecs.readAllBytes(file));
+        }
+    }
+
+    @Test
+    void plainFilesPassThrough() throws IOException {
+        Path file = Files.createTempDirectory("city-codecs").resolve("cities.json");
+        byte[] data = cities(10);
+
+        CityCodecs.write(file, data);
+
+        assertEquals(CityCodecs.Codec.NONE, CityCodecs.sniff(file));
+        assertArrayEquals(data, Files.readAllBytes(file));
+        assertArrayEquals(data, CityCodecs.readAllBytes(file));
+    }
+
+    private static byte[] cities(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"slug\":\"city").append(i).append("\",\"coords\":{\"lat\":")
+                    .append(i % 90).append('.').append(i % 7).append(",\"lon\":").append(i % 180).append("}}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
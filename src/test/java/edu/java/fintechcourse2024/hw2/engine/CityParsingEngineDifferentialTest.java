@@ -0,0 +1,304 @@
+package edu.java.fintechcourse2024.hw2.engine;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CityParsingEngineDifferentialTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    private final CityParsingEngine jackson = new JacksonCityEngine(CityReader.shared());
+    private final CityParsingEngine fast = new FastCityEngine();
+
+    @Test
+    void enginesAgreeOnRandomValidInput() throws IOException {
+        Random random = new Random(20241018);
+        for (int i = 0; i < ITERATIONS; i++) {
+            byte[] json = randomCity(random).getBytes(StandardCharsets.UTF_8);
+            City expected = jackson.parse(json);
+            City actual = fast.parse(json);
+            assertEquals(expected, actual, () -> new String(json, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void enginesAgreeOnTruncatedInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < ITERATIONS; i++) {
+            byte[] json = randomCity(random).getBytes(StandardCharsets.UTF_8);
+            int length = 1 + random.nextInt(json.length - 1);
+            String truncated = new String(json, 0, length, StandardCharsets.UTF_8);
+            if (truncated.isBlank()) {
+                continue;
+            }
+            byte[] input = truncated.getBytes(StandardCharsets.UTF_8);
+            assertBothFail(input);
+        }
+    }
+
+    @Test
+    void enginesAgreeOnIrregularInput() {
+        Random random = new Random(7);
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertSameOutcome(irregularCity(random).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void enginesAgreeOnCoercionEdgeCases() {
+        String[] cases = {
+                "{\"lat\":{\"lat\":1}}",
+                "{\"coords\":{\"slug\":1.5}}",
+                "{\"slug\":\"a\",\"slug\":\"b\"}",
+                "{\"slug\":\"a\",\"coords\":{\"lat\":1,\"lon\":2},\"slug\":\"b\"}",
+                "{\"coords\":{\"lat\":1,\"lat\":2}}",
+                "{\"coords\":{\"lat\":1,\"lon\":2,\"lat\":3}}",
+                "{\"coords\":{\"lat\":1,\"lon\":2},\"coords\":{\"lat\":3}}",
+                "{\"coords\":{\"lat\":null,\"lon\":\"2.5\"}}",
+                "{\"coords\":{\"lat\":\"\",\"lon\":\" 3 \"}}",
+                "{\"coords\":{\"lat\":\"abc\"}}",
+                "{\"coords\":{\"lat\":\"1e3\",\"lon\":\"NaN\"}}",
+                "{\"coords\":{\"lat\":\"-Infinity\",\"lon\":\"+1\"}}",
+                "{\"coords\":{\"lat\":true}}",
+                "{\"coords\":{\"lat\":[1]}}",
+                "{\"coords\":{\"lat\":{}}}",
+                "{\"coords\":\"\"}",
+                "{\"coords\":1}",
+                "{\"coords\":[]}",
+                "{\"slug\":1.5}",
+                "{\"slug\":-0.0,\"coords\":null}",
+                "{\"slug\":1e2}",
+                "{\"slug\":true}",
+                "{\"slug\":false}",
+                "{\"slug\":{}}",
+                "{\"slug\":[]}",
+                "{\"name\":\"spb\"}",
+        };
+        for (String json : cases) {
+            assertSameOutcome(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void enginesAgreeOnEscapedKeys() {
+        String[] cases = {
+                "{\"\\u0073lug\":\"spb\"}",
+                "{\"slu\\u0067\":\"spb\",\"\\u0063oords\":{\"l\\u0061t\":1,\"\\u006Con\":2}}",
+                "{\"\\/slug\":\"spb\"}",
+                "{\"sl\\\"ug\":\"spb\"}",
+                "{\"\\u0073lug\":\"a\",\"slug\":\"b\"}",
+                "{\"\\u0073lug\":\"a\",\"coords\":null,\"\\u0073lug\":\"b\"}",
+                "{\"\\u0073lu\":\"spb\"}",
+                "{\"\\u00\":1}",
+                "{\"\\x\":1}",
+        };
+        for (String json : cases) {
+            assertSameOutcome(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void enginesAgreeOnLongMantissas() {
+        String[] cases = {
+                "12345678901234567",
+                "123456789012345678",
+                "1234567890123456789",
+                "9007199254740993",
+                "123456789012345678000",
+                "0.12345678901234567",
+                "0.123456789012345678",
+                "0.1234567890123456789",
+                "1.2345678901234567800000",
+                "1.2345678901234567800001",
+                "0.000000000000000000001234567890123456789",
+        };
+        for (String number : cases) {
+            String json = "{\"coords\":{\"lat\":" + number + ",\"lon\":-" + number + "}}";
+            assertSameOutcome(json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void enginesRejectBrokenKeyFromSample() throws IOException {
+        byte[] json = Files.readAllBytes(Path.of("src/main/resources/city-error.json"));
+        assertThrows(IOException.class, () -> jackson.parse(json));
+        assertThrows(IOException.class, () -> fast.parse(json));
+    }
+
+    @Test
+    void enginesAgreeOnSample() throws IOException {
+        byte[] json = Files.readAllBytes(Path.of("src/main/resources/city.json"));
+        assertEquals(jackson.parse(json), fast.parse(json));
+    }
+
+    private void assertBothFail(byte[] input) {
+        String text = new String(input, StandardCharsets.UTF_8);
+        try {
+            City city = jackson.parse(input);
+            fail("Jackson принял некорректный JSON " + text + " -> " + city);
+        } catch (IOException expected) {
+            assertThrows(IOException.class, () -> fast.parse(input), text);
+        }
+    }
+
+    private void assertSameOutcome(byte[] input) {
+        String text = new String(input, StandardCharsets.UTF_8);
+        City expected;
+        try {
+            expected = jackson.parse(input);
+        } catch (IOException jacksonError) {
+            IOException fastError = assertThrows(IOException.class, () -> fast.parse(input), text);
+            assertEquals(category(jacksonError), category(fastError), () -> text + ": " + jacksonError + " / " + fastError);
+            return;
+        }
+        try {
+            assertEquals(expected, fast.parse(input), text);
+        } catch (IOException e) {
+            fail("Быстрый движок отверг JSON, который принимает Jackson: " + text + " -> " + e);
+        }
+    }
+
+    private static String category(IOException error) {
+        if (error instanceof JsonMappingException) {
+            return "mapping";
+        }
+        return error instanceof JsonParseException ? "parse" : "io";
+    }
+
+    private static String irregularCity(Random random) {
+        List<String> members = new ArrayList<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            String key = randomKey(random);
+            String value = switch (key) {
+                case "slug" -> randomScalar(random);
+                case "coords" -> random.nextInt(8) == 0 ? randomScalar(random) : irregularCoords(random);
+                default -> random.nextBoolean() ? randomScalar(random) : irregularCoords(random);
+            };
+            members.add(member(random, key, value));
+        }
+        return object(random, members);
+    }
+
+    private static String irregularCoords(Random random) {
+        List<String> members = new ArrayList<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            members.add(member(random, randomKey(random), randomScalar(random)));
+        }
+        return object(random, members);
+    }
+
+    private static String randomKey(Random random) {
+        return switch (random.nextInt(9)) {
+            case 0 -> "slug";
+            case 1 -> "coords";
+            case 2, 3 -> "lat";
+            case 4, 5 -> "lon";
+            case 6 -> "name";
+            default -> random.nextBoolean() ? "slug" : "coords";
+        };
+    }
+
+    private static String randomScalar(Random random) {
+        return switch (random.nextInt(8)) {
+            case 0 -> "null";
+            case 1 -> random.nextBoolean() ? "true" : "false";
+            case 2 -> "\"" + randomNumber(random) + "\"";
+            case 3 -> random.nextBoolean() ? "\"\"" : "\" 12.5 \"";
+            case 4 -> randomString(random);
+            case 5 -> random.nextBoolean() ? "[]" : "{}";
+            default -> randomNumber(random);
+        };
+    }
+
+    private static String randomCity(Random random) {
+        List<String> members = new ArrayList<>();
+        if (random.nextInt(10) > 0) {
+            members.add(member(random, "slug", random.nextInt(20) == 0 ? "null" : randomString(random)));
+        }
+        if (random.nextInt(10) > 0) {
+            members.add(member(random, "coords", random.nextInt(20) == 0 ? "null" : randomCoords(random)));
+        }
+        return object(random, members);
+    }
+
+    private static String randomCoords(Random random) {
+        List<String> members = new ArrayList<>();
+        if (random.nextInt(10) > 0) {
+            members.add(member(random, "lat", randomNumber(random)));
+        }
+        if (random.nextInt(10) > 0) {
+            members.add(member(random, "lon", randomNumber(random)));
+        }
+        return object(random, members);
+    }
+
+    private static String object(Random random, List<String> members) {
+        Collections.shuffle(members, random);
+        return "{" + whitespace(random) + String.join("," + whitespace(random), members) + whitespace(random) + "}";
+    }
+
+    private static String member(Random random, String key, String value) {
+        return "\"" + key + "\"" + whitespace(random) + ":" + whitespace(random) + value;
+    }
+
+    private static String whitespace(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> " ";
+            case 1 -> "\n  ";
+            case 2 -> "\r\n\t";
+            default -> "";
+        };
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder out = new StringBuilder("\"");
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(12)) {
+                case 0 -> out.append("\\\"");
+                case 1 -> out.append("\\\\");
+                case 2 -> out.append("\\n");
+                case 3 -> out.append(String.format("\\u%04x", random.nextInt(0xD800)));
+                case 4 -> out.append((char) ('а' + random.nextInt(32)));
+                case 5 -> out.append("🏙");
+                case 6 -> out.append("\\/");
+                default -> out.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static String randomNumber(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> Double.toString(random.nextDouble() * 360 - 180);
+            case 1 -> {
+                double value = Double.longBitsToDouble(random.nextLong());
+                yield Double.toString(Double.isFinite(value) ? value : random.nextGaussian());
+            }
+            case 2 -> Integer.toString(random.nextInt(2001) - 1000);
+            case 3 -> String.format(Locale.ROOT, "%.6f", random.nextDouble() * 180 - 90);
+            case 4 -> (random.nextBoolean() ? "-" : "") + random.nextInt(10) + "." + Math.abs(random.nextLong())
+                    + Math.abs(random.nextLong()) + "e" + (random.nextInt(40) - 20);
+            default -> (random.nextBoolean() ? "-0." : "0.") + "0".repeat(random.nextInt(5)) + random.nextInt(1_000_000);
+        };
+    }
+}
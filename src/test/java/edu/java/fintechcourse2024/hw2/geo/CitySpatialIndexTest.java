@@ -0,0 +1,79 @@
+package edu.java.fintechcourse2024.hw2.geo;
+
+import edu.java.fintechcourse2024.hw2.table.CityTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CitySpatialIndexTest {
+
+    private static final int DUPLICATES = 200_000;
+
+    @Test
+    void buildsOverIdenticalPointsAndAnswersLikeBruteForce() {
+        CityTable table = new CityTable(DUPLICATES);
+        for (int i = 0; i < DUPLICATES; i++) {
+            table.add("spb", 59.939095, 30.315868);
+        }
+        CitySpatialIndex index = CitySpatialIndex.build(table);
+
+        assertEquals(DUPLICATES, index.size());
+        assertMatchesBruteForce(table, index, new Random(1), 20);
+    }
+
+    @Test
+    void buildsOverHeavilyDuplicatedPointsAndAnswersLikeBruteForce() {
+        Random random = new Random(2);
+        double[][] cities = new double[16][];
+        for (int i = 0; i < cities.length; i++) {
+            cities[i] = new double[]{random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+        }
+        CityTable table = new CityTable(DUPLICATES);
+        for (int i = 0; i < DUPLICATES; i++) {
+            double[] city = cities[random.nextInt(cities.length)];
+            table.add("city", city[0], city[1]);
+        }
+        CitySpatialIndex index = CitySpatialIndex.build(table);
+
+        assertMatchesBruteForce(table, index, random, 20);
+    }
+
+    private static void assertMatchesBruteForce(CityTable table, CitySpatialIndex index, Random random, int queries) {
+        for (int q = 0; q < queries; q++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int k = 1 + random.nextInt(50);
+
+            double[] expected = IntStream.range(0, table.size())
+                    .mapToDouble(i -> CitySpatialIndex.distanceMeters(lat, lon, table.lat(i), table.lon(i)))
+                    .sorted()
+                    .limit(k)
+                    .toArray();
+            List<Neighbor> actual = index.nearest(lat, lon, k);
+            assertEquals(k, actual.size());
+            for (int i = 0; i < k; i++) {
+                assertEquals(expected[i], actual.get(i).distanceMeters(), 1e-3);
+            }
+
+            double south = Math.max(-90, lat - 30);
+            double north = Math.min(90, lat + 30);
+            double west = lon - 60 < -180 ? lon + 300 : lon - 60;
+            double east = lon + 60 > 180 ? lon - 300 : lon + 60;
+            int[] inBox = IntStream.range(0, table.size())
+                    .filter(i -> table.lat(i) >= south && table.lat(i) <= north
+                            && (west <= east
+                            ? table.lon(i) >= west && table.lon(i) <= east
+                            : table.lon(i) >= west || table.lon(i) <= east))
+                    .toArray();
+            int[] found = index.withinBox(south, west, north, east);
+            Arrays.sort(found);
+            assertArrayEquals(inBox, found);
+        }
+    }
+}
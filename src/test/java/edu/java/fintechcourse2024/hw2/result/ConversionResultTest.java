@@ -0,0 +1,73 @@
+package edu.java.fintechcourse2024.hw2.result;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionResultTest {
+
+    @Test
+    void parseFailureKeepsLocationOfTheError() throws IOException {
+        Path file = write("{\n  \"slug\": \"spb\",\n  \"coords\": tru\n}");
+        IOException error = assertThrows(IOException.class, () -> CityReader.shared().read(file.toFile()));
+
+        ConversionResult.Failure failure = ConversionResult.failure(file, error);
+
+        assertEquals(FailureCategory.PARSE, failure.category());
+        assertEquals(file, failure.file());
+        assertEquals(3, failure.line());
+        assertTrue(failure.column() > 0, "column " + failure.column());
+        assertTrue(failure.byteOffset() > 0, "offset " + failure.byteOffset());
+        assertFalse(failure.message().contains("Source"), failure.message());
+        assertFalse(failure.isSuccess());
+    }
+
+    @Test
+    void failureCategoryFollowsExceptionType() throws IOException {
+        Path file = write("{\"name\": \"spb\"}");
+        JsonMappingException mapping = assertThrows(JsonMappingException.class,
+                () -> CityReader.shared().read(file.toFile()));
+
+        assertEquals(FailureCategory.MAPPING, ConversionResult.failure(file, mapping).category());
+        assertEquals(FailureCategory.IO, ConversionResult.failure(file, new IOException("диск")).category());
+        assertEquals(FailureCategory.UNEXPECTED,
+                ConversionResult.failure(file, new IllegalStateException("сбой")).category());
+    }
+
+    @Test
+    void failureTimeIsTakenWhenTheFailureHappens() {
+        Instant before = Instant.now();
+        ConversionResult.Failure failure = ConversionResult.failure(Path.of("city.json"), new IOException("диск"));
+        Instant after = Instant.now();
+
+        assertFalse(failure.time().isBefore(before));
+        assertFalse(failure.time().isAfter(after));
+    }
+
+    @Test
+    void successCarriesTheCity() {
+        City city = new City("spb", new Coordinates(59.9, 30.3));
+        ConversionResult result = ConversionResult.success(Path.of("city.json"), city);
+
+        assertTrue(result.isSuccess());
+        assertEquals(city, ((ConversionResult.Success) result).city());
+    }
+
+    private static Path write(String json) throws IOException {
+        Path file = Files.createTempFile("city", ".json");
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, json);
+    }
+}
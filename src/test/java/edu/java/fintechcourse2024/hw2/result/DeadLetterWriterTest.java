@@ -0,0 +1,121 @@
+package edu.java.fintechcourse2024.hw2.result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void writesOneJsonLinePerFailureWithTheFailureTime() throws IOException {
+        Path log = Files.createTempDirectory("dead-letters").resolve("failed.ndjson");
+        Instant time = Instant.parse("2024-03-01T10:15:30Z");
+        try (DeadLetterWriter writer = new DeadLetterWriter(log)) {
+            writer.append(new ConversionResult.Failure(Path.of("city1.json"), FailureCategory.PARSE,
+                    42, 3, 7, "Unexpected character", null, time));
+            writer.append(ConversionResult.failure(Path.of("city2.json"), new IOException("нет доступа")));
+        }
+
+        List<String> lines = Files.readAllLines(log);
+        assertEquals(2, lines.size());
+        JsonNode first = MAPPER.readTree(lines.get(0));
+        assertEquals("2024-03-01T10:15:30Z", first.get("time").asText());
+        assertEquals("city1.json", first.get("file").asText());
+        assertEquals("PARSE", first.get("category").asText());
+        assertEquals(42, first.get("byteOffset").asLong());
+        assertEquals(3, first.get("line").asInt());
+        assertEquals(7, first.get("column").asInt());
+        JsonNode second = MAPPER.readTree(lines.get(1));
+        assertEquals("IO", second.get("category").asText());
+        assertEquals(IOException.class.getName(), second.get("exception").asText());
+    }
+
+    @Test
+    void doesNotCreateTheFileWithoutFailures() throws IOException {
+        Path log = Files.createTempDirectory("dead-letters").resolve("failed.ndjson");
+        new DeadLetterWriter(log).close();
+
+        assertFalse(Files.exists(log));
+    }
+
+    @Test
+    void appendAfterCloseIsRejected() throws IOException {
+        DeadLetterWriter writer = new DeadLetterWriter(Files.createTempDirectory("dead-letters").resolve("failed.ndjson"));
+        writer.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> writer.append(ConversionResult.failure(Path.of("city.json"), new IOException("диск"))));
+    }
+
+    @Test
+    void acceptedAppendsRacingWithCloseAreNeverLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path log = Files.createTempDirectory("dead-letters").resolve("failed.ndjson");
+            DeadLetterWriter writer = new DeadLetterWriter(log, 4);
+            AtomicLong accepted = new AtomicLong();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 1_000; i++) {
+                        try {
+                            writer.append(ConversionResult.failure(Path.of("city" + i + ".json"), new IOException("диск")));
+                            accepted.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            return;
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            started.await();
+            writer.close();
+            for (Thread thread : threads) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive(), "append завис после close");
+            }
+
+            long lines = Files.exists(log) ? Files.readAllLines(log).size() : 0;
+            assertEquals(accepted.get(), writer.written());
+            assertEquals(accepted.get(), lines);
+        }
+    }
+
+    @Test
+    void writeFailureDoesNotStopTheWorker() throws Exception {
+        // Каталог вместо файла: каждая попытка открыть журнал завершается ошибкой
+        Path log = Files.createTempDirectory("dead-letters");
+        DeadLetterWriter writer = new DeadLetterWriter(log, 2);
+        Thread appender = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                writer.append(ConversionResult.failure(Path.of("city" + i + ".json"), new IOException("диск")));
+            }
+        });
+        appender.start();
+        appender.join(10_000);
+        assertFalse(appender.isAlive(), "очередь журнала перестала разбираться");
+        writer.close();
+
+        assertEquals(0, writer.written());
+        assertEquals(100, writer.lost());
+        assertTrue(Files.isDirectory(log));
+    }
+}
@@ -0,0 +1,139 @@
+package edu.java.fintechcourse2024.hw2.sink;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityXmlSinkTest {
+
+    @Test
+    void rollsOverByRecords() throws Exception {
+        Path dir = Files.createTempDirectory("city-sink");
+        try (CityXmlSink sink = new CityXmlSink(dir, "cities", Long.MAX_VALUE, 2, FsyncPolicy.NEVER, 64)) {
+            for (int i = 0; i < 5; i++) {
+                sink.write(city("city" + i));
+            }
+            assertEquals(5, sink.records());
+        }
+
+        assertEquals(List.of(dir.resolve("cities-00001.xml"), dir.resolve("cities-00002.xml"),
+                dir.resolve("cities-00003.xml")), files(dir));
+        assertEquals(List.of("city0", "city1"), slugs(dir.resolve("cities-00001.xml")));
+        assertEquals(List.of("city2", "city3"), slugs(dir.resolve("cities-00002.xml")));
+        assertEquals(List.of("city4"), slugs(dir.resolve("cities-00003.xml")));
+    }
+
+    @Test
+    void rollsOverByBytes() throws Exception {
+        Path dir = Files.createTempDirectory("city-sink");
+        // Лимит меньше одной записи: каждый город уходит в свой файл, но запись не разрывается
+        try (CityXmlSink sink = new CityXmlSink(dir, "cities", 1, Long.MAX_VALUE, FsyncPolicy.NEVER)) {
+            sink.write(city("spb"));
+            sink.write(city("msk"));
+            sink.write(null);
+            assertEquals(3, sink.files().size());
+        }
+
+        List<Path> files = files(dir);
+        assertEquals(3, files.size());
+        assertEquals(List.of("spb"), slugs(files.get(0)));
+        assertEquals(List.of("msk"), slugs(files.get(1)));
+        assertEquals(List.of(""), slugs(files.get(2)));
+    }
+
+    @Test
+    void continuesNumberingAfterExistingFiles() throws Exception {
+        Path dir = Files.createTempDirectory("city-sink");
+        Files.writeString(dir.resolve("cities-00007.xml"), "previous");
+        Files.writeString(dir.resolve("cities-abc.xml"), "foreign");
+        Files.writeString(dir.resolve("other-00042.xml"), "foreign");
+
+        try (CityXmlSink sink = new CityXmlSink(dir, "cities", Long.MAX_VALUE, 1, FsyncPolicy.ON_ROLLOVER)) {
+            sink.write(city("spb"));
+            sink.write(city("msk"));
+            assertEquals(List.of(dir.resolve("cities-00008.xml"), dir.resolve("cities-00009.xml")), sink.files());
+        }
+
+        assertEquals("previous", Files.readString(dir.resolve("cities-00007.xml")));
+        assertEquals(List.of("spb"), slugs(dir.resolve("cities-00008.xml")));
+        assertEquals(List.of("msk"), slugs(dir.resolve("cities-00009.xml")));
+    }
+
+    @Test
+    void everyFsyncPolicyProducesTheSameFiles() throws Exception {
+        List<String> expected = null;
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path dir = Files.createTempDirectory("city-sink");
+            try (CityXmlSink sink = new CityXmlSink(dir, "cities", Long.MAX_VALUE, 2, policy, 64)) {
+                sink.write(city("spb"));
+                sink.flush();
+                // После flush запись уже в файле, хотя он ещё открыт
+                assertTrue(Files.readString(dir.resolve("cities-00001.xml")).contains("<slug>spb</slug>"), policy.name());
+                sink.write(city("msk"));
+                sink.write(city("nsk"));
+            }
+            List<String> contents = new ArrayList<>();
+            for (Path file : files(dir)) {
+                contents.add(Files.readString(file));
+            }
+            if (expected == null) {
+                expected = contents;
+            }
+            assertEquals(expected, contents, policy.name());
+        }
+        assertEquals(2, expected.size());
+    }
+
+    @Test
+    void rejectsWritesAfterClose() throws IOException {
+        Path dir = Files.createTempDirectory("city-sink");
+        CityXmlSink sink = new CityXmlSink(dir, "cities", Long.MAX_VALUE, 10, FsyncPolicy.NEVER);
+        sink.write(city("spb"));
+        sink.close();
+        sink.close();
+
+        assertThrows(IOException.class, () -> sink.write(city("msk")));
+        assertEquals(List.of("spb"), slugs(dir.resolve("cities-00001.xml")));
+    }
+
+    private static City city(String slug) {
+        return new City(slug, new Coordinates(59.9, 30.3));
+    }
+
+    // Каждый файл должен быть самостоятельным корректным XML-документом
+    private static List<String> slugs(Path file) throws IOException {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file.toFile());
+            assertEquals("Cities", document.getDocumentElement().getTagName());
+            var nodes = document.getElementsByTagName("slug");
+            List<String> slugs = new ArrayList<>();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                slugs.add(nodes.item(i).getTextContent());
+            }
+            return slugs;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Некорректный XML в файле " + file, e);
+        }
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
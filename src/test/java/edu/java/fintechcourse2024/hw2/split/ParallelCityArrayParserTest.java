@@ -0,0 +1,212 @@
+package edu.java.fintechcourse2024.hw2.split;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityParser;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelCityArrayParserTest {
+
+    private static final String SPB = "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}";
+    private static final String MSK = "{\"slug\":\"msk\",\"coords\":{\"lat\":55.7,\"lon\":37.6}}";
+    private static final String BOM = "\uFEFF";
+
+    private static final String[] CASES = {
+            "[]",
+            "  [ ]  ",
+            "[" + SPB + "]",
+            "[\n  " + SPB + ",\n  " + MSK + "\n]",
+            BOM + "[" + SPB + "," + MSK + "]",
+            "[{\"slug\":\"a,b]}\\\"\",\"coords\":{\"lat\":1,\"lon\":2}}," + MSK + "]",
+            "[" + SPB + " " + MSK + "]",
+            "[" + SPB + ",," + MSK + "]",
+            "[" + SPB + ",\n]",
+            "[," + SPB + "]",
+            "[\n" + SPB + ",\n" + MSK + ",\n  {\"slug\":\"x\",\"name\":\"y\"}\n]",
+            "[\n" + SPB + ",\n  {\"slug\":\"x\", \"coords\": tru}\n]",
+            "[" + SPB + ", 1]",
+            "[\"spb\"]",
+            "[1]",
+            "{" + SPB + "}",
+            "[" + SPB + "," + MSK,
+    };
+
+    @Test
+    void parallelParserAgreesWithSequentialOnEdgeCases() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Кусок в 1 байт режет массив на каждом объекте, 64 байта - через один, 1 МБ - не режет вовсе
+            for (long chunkBytes : new long[] {1, 64, 1 << 20}) {
+                ParallelCityArrayParser parallel = new ParallelCityArrayParser(pool, CityReader.shared(), chunkBytes);
+                agreeOnEdgeCases(parallel, true);
+                agreeOnEdgeCases(parallel, false);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void compressedInputFallsBackToSequentialParsing() throws IOException {
+        String json = CASES[3];
+        Path file = Files.createTempFile("cities", ".json.gz");
+        file.toFile().deleteOnExit();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        List<City> expected = new ArrayList<>();
+        CityParser.readJsonArray(file.toFile(), expected::add);
+
+        ParallelCityArrayParser parallel = new ParallelCityArrayParser(ForkJoinPool.commonPool(), CityReader.shared(), 1);
+        for (boolean preserveOrder : new boolean[] {true, false}) {
+            List<City> actual = Collections.synchronizedList(new ArrayList<>());
+            assertEquals(2, parallel.parse(file, preserveOrder, actual::add));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void unorderedModeBoundsChunksInFlight() throws Exception {
+        // Параллелизм 2 - не больше 4 кусков в работе; каждый объект - отдельный кусок
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Path file = cities(1000, "");
+        try {
+            ParallelCityArrayParser parallel = new ParallelCityArrayParser(pool, CityReader.shared(), 1);
+            CompletableFuture<Long> parsing = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return parallel.parse(file, false, city -> {
+                        threads.add(Thread.currentThread().getName());
+                        delivered.incrementAndGet();
+                        await(release);
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertTrue(pool.getQueuedSubmissionCount() + pool.getActiveThreadCount() <= 4,
+                    "в пуле " + pool.getQueuedSubmissionCount() + " ожидающих кусков");
+            assertTrue(delivered.get() <= 2, "доставлено " + delivered.get());
+
+            release.countDown();
+            assertEquals(1000, parsing.get(30, TimeUnit.SECONDS).longValue());
+            assertEquals(1000, delivered.get());
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("ForkJoinPool-")), threads.toString());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void unorderedModeStopsAfterTheFirstFailedChunk() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        AtomicInteger delivered = new AtomicInteger();
+        Path file = cities(1000, "{\"slug\":\"x\",\"name\":\"y\"},");
+        try {
+            ParallelCityArrayParser parallel = new ParallelCityArrayParser(pool, CityReader.shared(), 1);
+            assertThrows(JsonMappingException.class,
+                    () -> parallel.parse(file, false, city -> delivered.incrementAndGet()));
+            assertTrue(delivered.get() < 10, "после ошибки разобрано " + delivered.get() + " городов");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Path cities(int count, String prefix) throws IOException {
+        StringBuilder json = new StringBuilder("[").append(prefix);
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? "," : "").append(SPB);
+        }
+        Path file = Files.createTempFile("cities", ".json");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, json.append(']'));
+        return file;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void agreeOnEdgeCases(ParallelCityArrayParser parallel, boolean preserveOrder) throws IOException {
+        for (String json : CASES) {
+            Path file = Files.createTempFile("cities", ".json");
+            file.toFile().deleteOnExit();
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+            List<City> expected = new ArrayList<>();
+            IOException expectedError = null;
+            try {
+                CityParser.readJsonArray(file.toFile(), expected::add);
+            } catch (IOException e) {
+                expectedError = e;
+            }
+            List<City> actual = Collections.synchronizedList(new ArrayList<>());
+            IOException actualError = null;
+            try {
+                parallel.parse(file, preserveOrder, actual::add);
+            } catch (IOException e) {
+                actualError = e;
+            }
+
+            if (expectedError == null) {
+                assertEquals(null, actualError, json);
+                if (!preserveOrder) {
+                    // Без сохранения порядка сравниваем только состав
+                    Comparator<City> bySlug = Comparator.comparing(City::slug, Comparator.nullsFirst(Comparator.naturalOrder()));
+                    expected.sort(bySlug);
+                    actual.sort(bySlug);
+                }
+                assertEquals(expected, actual, json);
+            } else {
+                assertTrue(actualError != null, json + " должен завершиться ошибкой: " + expectedError.getMessage());
+                assertEquals(category(expectedError), category(actualError), json);
+                JsonLocation expectedLocation = ((JsonProcessingException) expectedError).getLocation();
+                JsonLocation actualLocation = ((JsonProcessingException) actualError).getLocation();
+                assertEquals(expectedLocation.getLineNr(), actualLocation.getLineNr(), json);
+                assertEquals(expectedLocation.getColumnNr(), actualLocation.getColumnNr(), json);
+            }
+        }
+    }
+
+    private static String category(IOException e) {
+        if (e instanceof JsonParseException) {
+            return "parse";
+        }
+        return e instanceof JsonMappingException ? "mapping" : "io";
+    }
+}
@@ -0,0 +1,66 @@
+package edu.java.fintechcourse2024.hw2.table;
+
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityTableTest {
+
+    @Test
+    void viewReturnsTheSameSlugInstanceForEveryRowOfASlug() {
+        CityTable table = new CityTable(16);
+        table.add(new City("spb", new Coordinates(59.9, 30.3)));
+        table.add(new City("msk", null));
+        table.add(new City("spb", new Coordinates(60, 30)));
+        table.add(new City(null, new Coordinates(1, 2)));
+
+        List<String> slugs = new ArrayList<>();
+        table.forEach(view -> {
+            assertSame(view.slug(), view.slug());
+            slugs.add(view.slug());
+        });
+
+        assertEquals(Arrays.asList("spb", "msk", "spb", null), slugs);
+        assertSame(slugs.get(0), slugs.get(2));
+        assertSame(slugs.get(0), table.slug(2));
+        assertSame(slugs.get(0), table.get(0).slug());
+        assertSame(table.view(1).slug(), table.view(1).slug());
+        assertNull(table.view(3).slug());
+    }
+
+    @Test
+    void cachedSlugsSurviveGrowth() {
+        CityTable table = new CityTable(16);
+        List<String> first = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            table.add("город-" + i, i, -i);
+            first.add(table.slug(i));
+        }
+        // Повторные слаги из байтов попадают в уже заполненный кэш
+        for (int i = 0; i < 2000; i++) {
+            byte[] utf8 = ("город-" + i).getBytes(StandardCharsets.UTF_8);
+            table.add(utf8, 0, utf8.length, i, i);
+        }
+
+        assertEquals(4000, table.size());
+        assertEquals(2000, table.distinctSlugs());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals("город-" + i, table.slug(i));
+            assertSame(first.get(i), table.slug(i));
+            assertSame(first.get(i), table.view(2000 + i).slug());
+            assertTrue(table.view(2000 + i).slugEquals("город-" + i));
+            assertFalse(table.view(2000 + i).slugEquals("город-" + (i + 1)));
+        }
+    }
+}
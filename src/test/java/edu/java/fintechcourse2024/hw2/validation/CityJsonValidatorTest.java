@@ -0,0 +1,88 @@
+package edu.java.fintechcourse2024.hw2.validation;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import edu.java.fintechcourse2024.hw2.CityReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityJsonValidatorTest {
+
+    private static final String[] CASES = {
+            "{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}}",
+            "{}",
+            "null",
+            "{\"slug\":\"spb\"}",
+            "{\"coords\":{\"lat\":1}}",
+            "{\"coords\":{\"lat\":null,\"lon\":\"2.5\"}}",
+            "{\"coords\":{\"lat\":\"\",\"lon\":\" 3 \"}}",
+            "{\"coords\":{\"lat\":\"abc\"}}",
+            "{\"coords\":{\"lat\":true}}",
+            "{\"coords\":{\"lat\":[1]}}",
+            "{\"coords\":\"\"}",
+            "{\"coords\":1}",
+            "{\"slug\":1.5}",
+            "{\"slug\":false}",
+            "{\"slug\":{}}",
+            "{\"slug\":\"a\",\"slug\":\"b\"}",
+            "{\"slug\":\"a\",\"coords\":null,\"slug\":\"b\"}",
+            "{\"coords\":{\"lat\":1,\"lon\":2,\"lat\":3}}",
+            "{\"lat\":1}",
+            "{\"coords\":{\"slug\":\"x\"}}",
+            "{\"slug\" \"spb\"}",
+            "{\"slug\":\"spb\"",
+    };
+
+    @Test
+    void agreesWithJacksonOnAcceptedAndRejectedInput() {
+        for (String json : CASES) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            ValidationResult result = CityJsonValidator.validate(bytes);
+            assertEquals(jacksonKind(bytes), result.kind(), json + " -> " + result);
+        }
+    }
+
+    @Test
+    void quarantineKeepsRelativePathsAndNeverOverwrites() throws IOException {
+        Path root = Files.createTempDirectory("city-quarantine");
+        Path input = root.resolve("in");
+        Path quarantine = root.resolve("quarantine");
+        Path first = Files.createDirectories(input.resolve("a")).resolve("city1.json");
+        Path second = Files.createDirectories(input.resolve("b")).resolve("city1.json");
+        ValidationResult reason = CityJsonValidator.validate("{".getBytes(StandardCharsets.UTF_8));
+
+        Files.writeString(first, "{ a");
+        Files.writeString(second, "{ b");
+        assertEquals(quarantine.resolve("a/city1.json"), CityQuarantine.move(first, input, quarantine, reason));
+        assertEquals(quarantine.resolve("b/city1.json"), CityQuarantine.move(second, input, quarantine, reason));
+
+        Files.writeString(first, "{ again");
+        Path third = CityQuarantine.move(first, input, quarantine, reason);
+        assertEquals(quarantine.resolve("a/city1-1.json"), third);
+        assertEquals("{ a", Files.readString(quarantine.resolve("a/city1.json")));
+        assertEquals("{ again", Files.readString(third));
+        assertTrue(Files.exists(quarantine.resolve("a/city1-1.json.reason")));
+        assertFalse(Files.exists(first));
+    }
+
+    private static ValidationResult.Kind jacksonKind(byte[] json) {
+        try {
+            CityReader.shared().read(json);
+            return ValidationResult.Kind.VALID;
+        } catch (JsonParseException e) {
+            return ValidationResult.Kind.SYNTAX;
+        } catch (JsonMappingException e) {
+            return ValidationResult.Kind.SCHEMA;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
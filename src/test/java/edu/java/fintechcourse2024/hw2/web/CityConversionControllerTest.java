@@ -0,0 +1,64 @@
+package edu.java.fintechcourse2024.hw2.web;
+
+import edu.java.fintechcourse2024.hw2.CityReader;
+import edu.java.fintechcourse2024.hw2.reactive.ReactiveCityConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityConversionControllerTest {
+
+    private final WebTestClient client = client(4);
+
+    @Test
+    void convertsArrayToXml() {
+        String xml = client.post().uri("/cities/xml")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}},{\"slug\":\"msk\",\"coords\":null}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(xml);
+        assertTrue(xml.startsWith("<Cities>"), xml);
+        assertTrue(xml.contains("<slug>spb</slug>") && xml.contains("<slug>msk</slug>"), xml);
+        assertTrue(xml.trim().endsWith("</Cities>"), xml);
+    }
+
+    @Test
+    void rejectsMalformedJsonWithBadRequest() {
+        client.post().uri("/cities/xml")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"slug\" \"spb\"}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void rejectsUnknownFieldWithBadRequest() {
+        client.post().uri("/cities/xml")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"slug\":\"spb\",\"name\":\"Санкт-Петербург\"}]")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void rejectsRequestsOverConcurrencyLimit() {
+        client(0).post().uri("/cities/xml")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"slug\":\"spb\"}")
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    private static WebTestClient client(int maxConcurrentRequests) {
+        CityConversionController controller =
+                new CityConversionController(new ReactiveCityConverter(CityReader.shared()), maxConcurrentRequests);
+        return WebTestClient.bindToController(controller).build();
+    }
+}
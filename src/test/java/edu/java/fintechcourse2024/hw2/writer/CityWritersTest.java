@@ -0,0 +1,210 @@
+package edu.java.fintechcourse2024.hw2.writer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.java.fintechcourse2024.hw2.CityParser;
+import edu.java.fintechcourse2024.hw2.dto.City;
+import edu.java.fintechcourse2024.hw2.dto.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CityWritersTest {
+
+    private static final String JSON = "[{\"slug\":\"spb\",\"coords\":{\"lat\":59.9,\"lon\":30.3}},"
+            + "{\"slug\":\"a,\\\"b\\\"\\nc\",\"coords\":null}]";
+
+    @Test
+    void csvQuotesSeparatorsQuotesAndLineBreaks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CityWriter writer = CityWriters.Format.CSV.create(out)) {
+            writer.write(new City("spb", new Coordinates(59.9, 30.3)));
+            writer.write(new City("a,\"b\"\nc", null));
+            writer.write(new City(null, new Coordinates(1, 2)));
+            writer.write(null);
+        }
+
+        assertEquals("slug,lat,lon\r\n"
+                + "spb,59.9,30.3\r\n"
+                + "\"a,\"\"b\"\"\nc\",,\r\n"
+                + ",1.0,2.0\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void binaryOutputIsReadableAsDelimitedProtobuf() throws IOException {
+        // 200 байт slug: длина записи и строки не помещается в один байт varint
+        List<City> cities = List.of(
+                new City("spb", new Coordinates(59.9, -30.3)),
+                new City("x".repeat(200), null),
+                new City(null, new Coordinates(0, 1e-300)),
+                new City(null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CityWriter writer = CityWriters.Format.BINARY.create(out)) {
+            for (City city : cities) {
+                writer.write(city);
+            }
+        }
+
+        assertEquals(cities, parseDelimited(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void teeWritesEveryCityToEveryOutput() throws IOException {
+        Path dir = Files.createTempDirectory("city-writers");
+        Path json = Files.writeString(dir.resolve("cities.json"), JSON);
+        Path csv = dir.resolve("cities.csv");
+        Path ndjson = dir.resolve("cities.ndjson");
+        Path xml = dir.resolve("cities.xml");
+        Path binary = dir.resolve("cities.pb");
+
+        assertEquals(2, CityParser.convertJsonArray(json.toFile(), List.of(csv, ndjson, xml, binary)));
+
+        assertEquals(3, Files.readString(csv).split("\r\n").length);
+        List<String> lines = Files.readAllLines(ndjson);
+        assertEquals(2, lines.size());
+        JsonNode second = new ObjectMapper().readTree(lines.get(1));
+        assertEquals("a,\"b\"\nc", second.get("slug").asText());
+        assertFalse(second.has("coords"));
+        assertTrue(Files.readString(xml).contains("<slug>spb</slug>"));
+        try (InputStream in = Files.newInputStream(binary)) {
+            assertEquals(List.of(new City("spb", new Coordinates(59.9, 30.3)), new City("a,\"b\"\nc", null)),
+                    parseDelimited(in));
+        }
+        assertEquals(List.of(csv, json, ndjson, binary, xml), files(dir));
+    }
+
+    @Test
+    void xmlOutputIsTheSameForBothApis() throws IOException {
+        Path dir = Files.createTempDirectory("city-writers");
+        Path json = Files.writeString(dir.resolve("cities.json"), JSON);
+        Path streamed = dir.resolve("streamed.xml");
+        Path written = dir.resolve("written.xml");
+
+        CityParser.convertJsonArrayToXML(json.toFile(), streamed.toFile());
+        CityParser.convertJsonArray(json.toFile(), List.of(written));
+
+        String xml = Files.readString(written);
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Cities>\n  <City>"), xml);
+        assertEquals(Files.readString(streamed), xml);
+    }
+
+    @Test
+    void failedConversionLeavesNoPartialOutputs() throws IOException {
+        Path dir = Files.createTempDirectory("city-writers");
+        Path json = Files.writeString(dir.resolve("cities.json"), JSON.replace("]", ",{\"slug\":"));
+        Path csv = Files.writeString(dir.resolve("cities.csv"), "previous");
+        Path ndjson = dir.resolve("cities.ndjson");
+        Path binary = dir.resolve("cities.pb");
+
+        assertEquals(0, CityParser.convertJsonArray(json.toFile(), List.of(csv, ndjson, binary)));
+
+        assertEquals("previous", Files.readString(csv));
+        assertEquals(List.of(csv, json), files(dir));
+    }
+
+    @Test
+    void closeWithoutCommitDiscardsTheFile() throws IOException {
+        Path dir = Files.createTempDirectory("city-writers");
+        Path csv = dir.resolve("cities.csv");
+        try (CityWriter writer = CityWriters.open(csv)) {
+            writer.write(new City("spb", null));
+            writer.flush();
+        }
+        assertEquals(List.of(), files(dir));
+
+        CityWriter writer = CityWriters.open(csv);
+        writer.write(new City("spb", null));
+        writer.commit();
+        writer.close();
+        assertEquals("slug,lat,lon\r\nspb,,\r\n", Files.readString(csv));
+        assertThrows(IllegalStateException.class, writer::commit);
+    }
+
+    // Эквивалент parseDelimitedFrom для message City { string slug = 1; Coordinates coords = 2; }
+    private static List<City> parseDelimited(InputStream in) throws IOException {
+        List<City> cities = new ArrayList<>();
+        int first;
+        while ((first = in.read()) >= 0) {
+            byte[] message = in.readNBytes(readVarint(in, first));
+            ByteBuffer buffer = ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN);
+            String slug = null;
+            Coordinates coords = null;
+            while (buffer.hasRemaining()) {
+                int tag = readVarint(buffer);
+                int length = readVarint(buffer);
+                byte[] field = new byte[length];
+                buffer.get(field);
+                switch (tag) {
+                    case 1 << 3 | 2 -> slug = new String(field, StandardCharsets.UTF_8);
+                    case 2 << 3 | 2 -> coords = parseCoordinates(ByteBuffer.wrap(field).order(ByteOrder.LITTLE_ENDIAN));
+                    default -> throw new IOException("Неожиданное поле " + tag);
+                }
+            }
+            cities.add(new City(slug, coords));
+        }
+        return cities;
+    }
+
+    private static Coordinates parseCoordinates(ByteBuffer buffer) throws IOException {
+        double lat = 0;
+        double lon = 0;
+        while (buffer.hasRemaining()) {
+            switch (readVarint(buffer)) {
+                case 1 << 3 | 1 -> lat = buffer.getDouble();
+                case 2 << 3 | 1 -> lon = buffer.getDouble();
+                default -> throw new IOException("Неожиданное поле координат");
+            }
+        }
+        return new Coordinates(lat, lon);
+    }
+
+    private static int readVarint(InputStream in, int first) throws IOException {
+        int value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}